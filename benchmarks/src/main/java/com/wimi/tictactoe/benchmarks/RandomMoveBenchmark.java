@@ -0,0 +1,69 @@
+/*
+ * Copyright 2019 Akshit Sinha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wimi.tictactoe.benchmarks;
+
+import com.wimi.tictactoe.client.game.Structure.States;
+import com.wimi.tictactoe.client.game.algo.Board;
+import com.wimi.tictactoe.client.game.algo.Grid;
+import com.wimi.tictactoe.client.game.algo.Rules;
+import com.wimi.tictactoe.util.RandomSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Description Measures picking a random empty cell, the move of the computer in EASY difficulty.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RandomMoveBenchmark {
+
+    private final Board board = new Board(0b000_010_001, 0b100_000_000);
+    private Grid classic;
+    private Grid gomoku;
+    private RandomSource random;
+
+    @Setup
+    public void setUp() {
+        classic = new Grid(Rules.CLASSIC);
+        classic.set(0, States.X);
+        classic.set(4, States.O);
+
+        gomoku = new Grid(new Rules(15, 5)); // Half of the cells taken.
+        for (int cell = 0; cell < 225; cell += 2) gomoku.set(cell, cell % 4 == 0 ? States.X : States.O);
+
+        random = RandomSource.current();
+    }
+
+    @Benchmark
+    public int bitboardMask() {
+        return random.nextSetBit(board.getEmpty());
+    }
+
+    @Benchmark
+    public int classicGrid() {
+        return classic.getRandomEmptyCell(random);
+    }
+
+    @Benchmark
+    public int largeGrid() {
+        return gomoku.getRandomEmptyCell(random);
+    }
+}
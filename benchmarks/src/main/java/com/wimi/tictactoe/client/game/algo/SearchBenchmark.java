@@ -0,0 +1,78 @@
+/*
+ * Copyright 2019 Akshit Sinha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wimi.tictactoe.client.game.algo;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Description Measures the 3x3 Minimax search. Lives in the package of the search to reach its hooks.
+ * <p>
+ * A cold search clears the transposition table first, so it searches the whole tree below the position.
+ * A warm search runs on the table left by the previous one, which is how the game runs after its first move.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({"EMPTY", "OPENING", "MIDGAME"})
+    public String position;
+
+    private int ai;
+    private int human;
+
+    @Setup
+    public void setUp() {
+        switch (position) {
+            case "EMPTY": // X to move on the empty board.
+                ai = 0;
+                human = 0;
+                break;
+            case "OPENING": // O to move after X took the center.
+                ai = 0;
+                human = 1 << 4;
+                break;
+            case "MIDGAME": // O to move after X 4, O 0, X 8.
+                ai = 1;
+                human = 1 << 4 | 1 << 8;
+                break;
+            default:
+                throw new IllegalStateException("Unknown position: " + position);
+        }
+    }
+
+    @Benchmark
+    public int coldSearch() {
+        Minimax.clearTable();
+        return new Minimax(ai, human).getCellID();
+    }
+
+    @Benchmark
+    public int warmSearch() {
+        return new Minimax(ai, human).getCellID();
+    }
+
+    @Benchmark
+    public int openingBook() {
+        return OpeningBook.lookup(ai, human);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2019 Akshit Sinha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wimi.tictactoe.client.game.algo;
+
+import com.wimi.tictactoe.client.game.Structure.States;
+import com.wimi.tictactoe.util.RandomSource;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Description Measures win detection on the 3x3 bitboard and on a 15x15 board.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WinBenchmark {
+
+    private static final int MASKS = Board.FULL + 1;
+    private static final int GOMOKU_MOVES = 60;
+
+    private final Board[] boards = new Board[MASKS];
+    private final Rules gomoku = new Rules(15, 5);
+    private final int[] line = new int[gomoku.getWinLength()];
+    private final int[] moves = new int[GOMOKU_MOVES];
+    private byte[] cells;
+
+    @Setup
+    public void setUp() {
+        for (int mask = 0; mask < MASKS; mask++) boards[mask] = new Board(mask & 0b101_010_101, mask & 0b010_101_010);
+
+        Grid grid = new Grid(gomoku); // Scattered marks with no line of five.
+        RandomSource.setSeed(15);
+        for (int i = 0; i < GOMOKU_MOVES; ) {
+            int cell = grid.getRandomEmptyCell(RandomSource.current());
+            grid.set(cell, i % 2 == 0 ? States.X : States.O);
+            if (grid.isWinningMove(cell)) grid.set(cell, States.NONE);
+            else moves[i++] = cell;
+        }
+
+        cells = grid.getCellArray();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MASKS)
+    public void bitboardIsWin(Blackhole blackhole) {
+        for (int mask = 0; mask < MASKS; mask++) blackhole.consume(Board.isWin(mask));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MASKS)
+    public void bitboardWinner(Blackhole blackhole) {
+        for (Board board : boards) blackhole.consume(board.getWinner());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MASKS)
+    public void bitboardWinningLine(Blackhole blackhole) {
+        for (Board board : boards) blackhole.consume(board.getWinningLine());
+    }
+
+    /**
+     * Checks only the lines through a move, as the game does after every move.
+     */
+    @Benchmark
+    @OperationsPerInvocation(GOMOKU_MOVES)
+    public void largeBoardLastMove(Blackhole blackhole) {
+        for (int cell : moves) blackhole.consume(gomoku.isWin(cells, cell));
+    }
+
+    /**
+     * Scans every line of the board, as the dashboard does for a saved game.
+     */
+    @Benchmark
+    public boolean largeBoardScan() {
+        return gomoku.findWinningLine(cells, line);
+    }
+}
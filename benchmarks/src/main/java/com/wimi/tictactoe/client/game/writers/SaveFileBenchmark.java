@@ -0,0 +1,97 @@
+/*
+ * Copyright 2019 Akshit Sinha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wimi.tictactoe.client.game.writers;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Description Measures reading and writing a .nc game file with the same keys the game saves,
+ * in the older JSON format and in the binary format.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@SuppressWarnings("unchecked")
+public class SaveFileBenchmark {
+
+    @Param({"3", "15"})
+    public int size;
+
+    private final JSONParser parser = new JSONParser();
+    private JSONObject game;
+    private String file;
+    private byte[] binaryFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        int cells = size * size;
+        int moves = cells * 2 / 3;
+
+        JSONArray nodes = new JSONArray();
+        JSONArray timeX = new JSONArray();
+        JSONArray timeO = new JSONArray();
+        for (int i = 0; i < cells; i++) nodes.add(i < moves ? (i % 2 == 0 ? "X" : "O") : " ");
+        for (int i = 0; i < moves; i++) (i % 2 == 0 ? timeX : timeO).add(1.5 + i % 7 / 10.0);
+
+        game = new JSONObject();
+        game.put("opponent", "computer");
+        game.put("mode", "timed");
+        game.put("ElapsedTime", 42.7);
+        game.put("nodes", nodes);
+        game.put("winner", "NONE");
+        game.put("state", false);
+        game.put("move", "X");
+        game.put("timeX", timeX);
+        game.put("timeO", timeO);
+        game.put("LastMoveTime", 0.8);
+        game.put("computerToMove", false);
+        game.put("size", size);
+        game.put("winLength", Math.min(size, 5));
+
+        file = game.toJSONString();
+        binaryFile = GameFile.encode(game);
+    }
+
+    @Benchmark
+    public Object parse() throws ParseException {
+        return parser.parse(file);
+    }
+
+    @Benchmark
+    public String serialize() {
+        return game.toJSONString();
+    }
+
+    @Benchmark
+    public Object decode() throws IOException {
+        return GameFile.decode(binaryFile);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return GameFile.encode(game);
+    }
+}
@@ -25,6 +25,7 @@ import com.wimi.tictactoe.gui.ContinueScreen;
 import com.wimi.tictactoe.gui.CreationScreen;
 import com.wimi.tictactoe.gui.OptionsScreen;
 import com.wimi.tictactoe.util.Console;
+import com.wimi.tictactoe.util.Metrics;
 import javafx.application.Application;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -42,6 +43,7 @@ import javafx.stage.Stage;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.function.Supplier;
 
 /**
  * Rudimentary version of Tic Tac Toe.
@@ -99,6 +101,9 @@ public class App extends Application {
         Console.log("Java Version: " + System.getProperty("java.version"));
         directoryCreator.createDirectories(); // Creates game directories.
         NoughtsAndCrosses.getWriter().init(); // Initializes game settings.
+        NoughtsAndCrosses.getCatalog().init(); // Lists the saved games.
+        AudioEngine.preload(); // Decodes the sounds in the background.
+        Metrics.start(); // Writes the metrics to a file and shows them in JMX.
     }
 
     @Override
@@ -113,24 +118,21 @@ public class App extends Application {
             Console.log("User switches to a new game start screen.");
             if (NoughtsAndCrosses.getWriter().getSFX()) AudioEngine.playClickSound();
 
-            CreationScreen gameScreen = new CreationScreen();
-            stage.setScene(gameScreen.getScene());
+            switchScene("creation", () -> new CreationScreen().getScene());
         });
 
         continueGameButton.setOnAction(event -> {
             Console.log("User switches to continue screen.");
             if (NoughtsAndCrosses.getWriter().getSFX()) AudioEngine.playClickSound();
 
-            ContinueScreen gameScreen = new ContinueScreen();
-            stage.setScene(gameScreen.getScene());
+            switchScene("continue", () -> new ContinueScreen().getScene());
         });
 
         optionsGameButton.setOnAction(event -> {
             Console.log("User switches to options screen.");
             if (NoughtsAndCrosses.getWriter().getSFX()) AudioEngine.playClickSound();
 
-            OptionsScreen gameScreen = new OptionsScreen();
-            stage.setScene(gameScreen.getScene());
+            switchScene("options", () -> new OptionsScreen().getScene());
         });
 
         exitGameButton.setOnAction(event -> {
@@ -158,8 +160,21 @@ public class App extends Application {
         stage.show();
     }
 
+    /**
+     * Shows a screen and records the time taken to build and show it.
+     *
+     * @param name Name of the screen in the metrics.
+     */
+    private void switchScene(String name, Supplier<Scene> screen) {
+        long start = System.nanoTime();
+        stage.setScene(screen.get());
+        Metrics.timer("scene.switch." + name).recordSince(start);
+    }
+
     @Override
     public void stop() throws Exception {
+        NoughtsAndCrosses.getWriter().flush(); // Settings changed just before exit.
+        Metrics.writeSnapshot();
         Console.log("Application ran for " + Duration.between(startTime, Instant.now()).toMillis() + " milliseconds.");
         System.exit(0);
         super.stop();
@@ -16,6 +16,7 @@
 
 package com.wimi.tictactoe.client;
 
+import com.wimi.tictactoe.client.game.writers.SaveCatalog;
 import com.wimi.tictactoe.client.game.writers.SettingsConfigurator;
 import com.wimi.tictactoe.util.Themes;
 import javafx.geometry.Insets;
@@ -28,21 +29,27 @@ import javafx.scene.paint.Color;
 public class NoughtsAndCrosses {
 
     private static final SettingsConfigurator writer = new SettingsConfigurator();
+    private static final SaveCatalog catalog = new SaveCatalog();
     private static Background background = new Background(new BackgroundFill(Color.rgb(0, 0, 0), CornerRadii.EMPTY, Insets.EMPTY));
 
     public static SettingsConfigurator getWriter() {
         return writer;
     }
 
+    public static SaveCatalog getCatalog() {
+        return catalog;
+    }
+
     /**
      * Sets a theme of the scene.
      *
      * @param root The root of the scene to which the theme should be applied to.
      */
     public static void setSceneBackground(Pane root) {
-        if (writer.getJsonKey("theme").equals(Themes.DARK.toString())) // Dark theme
+        Themes theme = writer.getTheme();
+        if (theme == Themes.DARK) // Dark theme
             background = new Background(new BackgroundFill(Color.rgb(54, 57, 65), CornerRadii.EMPTY, Insets.EMPTY));
-        else if (writer.getJsonKey("theme").equals(Themes.LIGHT.toString())) // Light theme
+        else if (theme == Themes.LIGHT) // Light theme
             background = new Background(new BackgroundFill(Color.rgb(250, 250, 250), CornerRadii.EMPTY, Insets.EMPTY));
 
         root.setBackground(background);
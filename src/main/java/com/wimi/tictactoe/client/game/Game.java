@@ -0,0 +1,246 @@
+/*
+ * Copyright 2019 Akshit Sinha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wimi.tictactoe.client.game;
+
+import com.wimi.tictactoe.client.game.algo.Grid;
+import com.wimi.tictactoe.client.game.algo.Rules;
+import com.wimi.tictactoe.util.GameStatus;
+
+import java.util.Arrays;
+
+/**
+ * @Description State of one game without any user interface: the board, the order of the moves, the clocks
+ * and the result.
+ * <p>
+ * The screens render from it and the computer plays on a copy of its board, so whole games can run where
+ * JavaFX is not available. Moves and clocks must come from the thread running the game. The status may be read
+ * from any thread and moves out of {@link GameStatus#PLAYING} only once, so only one caller ever ends the game.
+ * </p>
+ */
+public class Game extends Structure {
+
+    private final Rules rules;
+    private final Grid grid;
+    private final boolean timed; // Is the game in Timed mode or not.
+    private final long maxTime; // Seconds allowed for a move in Timed mode.
+    private final int[] history; // Cells in the order the moves were made.
+    private final double[] timesX; // Seconds taken for each move by X.
+    private final double[] timesO; // Seconds taken for each move by O.
+    private int movesX = 0; // Total moves made of X
+    private int movesO = 0; // Total moves made of O
+    private double moveTime = 0; // Seconds taken so far by the player to move.
+    private double elapsedTime = 0; // Seconds played since game start.
+    private volatile States move; // The player to move.
+    private volatile States winner = States.NONE; // Written before the status, so it is seen with it.
+    private volatile GameStatus status = GameStatus.PLAYING;
+
+    /**
+     * @param firstMove The player to move first.
+     * @param timed     Does each move have a time limit.
+     * @param maxTime   Seconds allowed for a move in Timed mode.
+     */
+    public Game(Rules rules, States firstMove, boolean timed, long maxTime) {
+        this.rules = rules;
+        this.grid = new Grid(rules);
+        this.timed = timed;
+        this.maxTime = maxTime;
+        this.history = new int[rules.getCells()];
+        this.timesX = new double[rules.getCells()];
+        this.timesO = new double[rules.getCells()];
+        this.move = firstMove;
+    }
+
+    /**
+     * Puts back a mark of a saved game without checking the rules. Saved games do not keep the order of the
+     * moves, so restored marks are added to the history in the order they are restored.
+     */
+    public void restore(int cell, States state) {
+        if (state == States.NONE || !grid.isEmpty(cell)) return;
+
+        grid.set(cell, state);
+        history[grid.getTotalMoves() - 1] = cell;
+    }
+
+    /**
+     * Puts back the time a saved move took.
+     */
+    public void restoreTime(States player, double seconds) {
+        if (player == States.X && movesX < timesX.length) timesX[movesX++] = seconds;
+        else if (player == States.O && movesO < timesO.length) timesO[movesO++] = seconds;
+    }
+
+    /**
+     * Puts back the player to move of a saved game.
+     */
+    public void restoreMove(States move) {
+        this.move = move;
+    }
+
+    /**
+     * Puts back the clocks of a saved game.
+     *
+     * @param elapsedTime Seconds played since game start.
+     * @param moveTime    Seconds already taken by the player to move.
+     */
+    public void restoreClocks(long elapsedTime, double moveTime) {
+        this.elapsedTime = elapsedTime;
+        this.moveTime = moveTime;
+    }
+
+    /**
+     * Makes a move for the player to move and hands the turn to the other player.
+     *
+     * @param cell An empty cell.
+     * @return True if the move finished the game.
+     */
+    public boolean play(int cell) {
+        if (status.isFinished()) throw new IllegalStateException("The game is already finished.");
+        if (!grid.isEmpty(cell)) throw new IllegalArgumentException("Cell " + cell + " is already taken.");
+
+        grid.set(cell, move);
+        history[grid.getTotalMoves() - 1] = cell;
+        if (move == States.X) timesX[movesX++] = round(moveTime);
+        else timesO[movesO++] = round(moveTime);
+
+        if (grid.isWinningMove(cell)) return finish(move); // Only the lines through the last move can have been completed.
+        else if (grid.isFull()) return finish(States.NONE);
+
+        move = getConjugateMove(move);
+        moveTime = 0;
+        return false;
+    }
+
+    /**
+     * Advances the clock of the player to move and the total time played. In Timed mode the other player wins
+     * once the time is up, but only after the first move was made.
+     *
+     * @param seconds Time passed since the last tick, as measured by the caller.
+     * @return True if the time ran out with this tick.
+     */
+    public boolean tick(double seconds) {
+        if (status.isFinished()) return false;
+
+        moveTime += seconds;
+        elapsedTime += seconds;
+        return timed && grid.getTotalMoves() > 0 && moveTime >= maxTime && timeOut();
+    }
+
+    /**
+     * Ends the game as the player to move ran out of time. The other player wins.
+     *
+     * @return True if this call ended the game, false if it had already ended.
+     */
+    public boolean timeOut() {
+        return transition(GameStatus.TIMED_OUT, getConjugateMove(move));
+    }
+
+    /**
+     * Ends the game.
+     *
+     * @param winner The winner, NONE for a draw.
+     * @return True if this call ended the game, false if it had already ended.
+     */
+    public boolean finish(States winner) {
+        return transition(winner == States.NONE ? GameStatus.DRAW : GameStatus.WON, winner);
+    }
+
+    private synchronized boolean transition(GameStatus status, States winner) {
+        if (this.status.isFinished()) return false;
+
+        this.winner = winner;
+        this.status = status;
+        return true;
+    }
+
+    public Rules getRules() {
+        return rules;
+    }
+
+    /**
+     * @return A copy of the board, to hand to the computer.
+     */
+    public Grid getGrid() {
+        return grid.copy();
+    }
+
+    public States get(int cell) {
+        return grid.get(cell);
+    }
+
+    public boolean isEmpty(int cell) {
+        return grid.isEmpty(cell);
+    }
+
+    /**
+     * @return The cells in the order the moves were made.
+     */
+    public int[] getHistory() {
+        return Arrays.copyOf(history, grid.getTotalMoves());
+    }
+
+    public int getTotalMoves() {
+        return grid.getTotalMoves();
+    }
+
+    /**
+     * @return Number of moves made by a player.
+     */
+    public int getMoves(States player) {
+        return player == States.X ? movesX : player == States.O ? movesO : 0;
+    }
+
+    /**
+     * @return Seconds taken for each move of a player.
+     */
+    public double[] getTimes(States player) {
+        return player == States.X ? Arrays.copyOf(timesX, movesX) : Arrays.copyOf(timesO, movesO);
+    }
+
+    public States getMove() {
+        return move;
+    }
+
+    public States getWinner() {
+        return winner;
+    }
+
+    public boolean isFinished() {
+        return status.isFinished();
+    }
+
+    public GameStatus getStatus() {
+        return status;
+    }
+
+    public boolean isTimed() {
+        return timed;
+    }
+
+    public long getMaxTime() {
+        return maxTime;
+    }
+
+    public double getMoveTime() {
+        return moveTime;
+    }
+
+    /**
+     * @return Whole seconds played since game start.
+     */
+    public long getElapsedTime() {
+        return (long) elapsedTime;
+    }
+}
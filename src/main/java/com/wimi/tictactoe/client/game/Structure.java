@@ -16,91 +16,60 @@
 
 package com.wimi.tictactoe.client.game;
 
-import javafx.scene.control.Button;
+import com.wimi.tictactoe.client.game.algo.Board;
+import com.wimi.tictactoe.client.game.algo.Grid;
+import com.wimi.tictactoe.client.game.algo.Rules;
+import com.wimi.tictactoe.util.RandomSource;
 import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.util.*;
 
 /**
  * @Description Contains the basic methods used for running a Tic Tac Toe game and utils.
+ * Does not depend on JavaFX, so the rules and the computer can run on their own.
  */
 public class Structure {
 
     /**
      * Checks if there is a win in the game.
      *
-     * @param buttons Game Matrix to check for a win.
+     * @param array          JSON Array with game nodes to check for a win.
+     * @param rules          The rules the game is played by.
+     * @param winningMoveIDs Integer array with cell IDs which caused a win. Needs room for the win length.
      */
-    protected boolean checkForWin(Button[] buttons) {
-        String[] moves = new String[buttons.length];
-        for (int i = 0; i < moves.length; i++) moves[i] = buttons[i].getText();
+    protected boolean checkForWin(JSONArray array, Rules rules, int[] winningMoveIDs) {
+        if (!rules.isClassic()) return toGrid(array, rules).findWinningLine(winningMoveIDs);
 
-        for (int i = 0; i < 9; i += 3) { // Check in rows
-            if (equals(moves[i], moves[i + 1], moves[i + 2]) && !moves[i].equals(" ")) return true;
-        }
+        Board board = new Board();
+        for (int i = 0; i < Board.CELLS; i++) board.set(i, getMoveID(array.get(i).toString()));
 
-        for (int i = 0; i < 3; i++) { // Check in columns
-            if (equals(moves[i], moves[i + 3], moves[i + 6]) && !moves[i].equals(" ")) return true;
-        }
-
-        // Check Diagonal and Anti-Diagonal.
-        if (equals(moves[0], moves[4], moves[8]) && !moves[0].equals(" ")) return true;
-        else return equals(moves[2], moves[4], moves[6]) && !moves[2].equals(" ");
+        int line = board.getWinningLine();
+        for (int i = 0, cells = line; cells != 0; i++, cells &= cells - 1) winningMoveIDs[i] = Integer.numberOfTrailingZeros(cells);
+        return line != 0;
     }
 
     /**
-     * Checks if there is a win in the game.
+     * Gets the rules of a game from its JSON. Games saved before boards of other sizes were added are classic games.
      *
-     * @param array          JSON Array with game nodes to check for a win.
-     * @param winningMoveIDs Integer array with cell IDs which caused a win.
+     * @param object The JSON of the game file.
      */
-    protected boolean checkForWin(JSONArray array, int[] winningMoveIDs) {
-        String[] moves = new String[array.size()];
-        for (int i = 0; i < moves.length; i++) moves[i] = array.get(i).toString();
-
-        for (int i = 0; i < 9; i += 3) { // Check in rows
-            if (equals(moves[i], moves[i + 1], moves[i + 2]) && !moves[i].equals(" ")) {
-                winningMoveIDs[0] = i;
-                winningMoveIDs[1] = i + 1;
-                winningMoveIDs[2] = i + 2;
-                return true;
-            }
-        }
-
-        for (int i = 0; i < 3; i++) { // Check in columns
-            if (equals(moves[i], moves[i + 3], moves[i + 6]) && !moves[i].equals(" ")) {
-                winningMoveIDs[0] = i;
-                winningMoveIDs[1] = i + 3;
-                winningMoveIDs[2] = i + 6;
-                return true;
-            }
-        }
-
-        if (equals(moves[0], moves[4], moves[8]) && !moves[0].equals(" ")) { // Check Diagonal
-            winningMoveIDs[0] = 0;
-            winningMoveIDs[1] = 4;
-            winningMoveIDs[2] = 8;
-            return true;
-        } else if (equals(moves[2], moves[4], moves[6]) && !moves[2].equals(" ")) { // Check Anti-Diagonal
-            winningMoveIDs[0] = 2;
-            winningMoveIDs[1] = 4;
-            winningMoveIDs[2] = 6;
-            return true;
-        } else return false;
+    protected Rules getRules(JSONObject object) {
+        if (!object.containsKey("size") || !object.containsKey("winLength")) return Rules.CLASSIC;
+        return new Rules(((Number) object.get("size")).intValue(), ((Number) object.get("winLength")).intValue());
     }
 
     /**
-     * Gets the total number of moves on a game excluding the ones not yet made.
+     * Converts the JSON Array of game nodes to a board.
      *
-     * @return Total number of moves already made.
+     * @param array JSON Array with game nodes.
+     * @param rules The rules the game is played by.
      */
-    protected int getTotalMoves(Button[] buttons) {
-        int moves = 0;
-        for (Button button : buttons) if (!button.getText().equals(" ")) moves++;
-
-        return moves;
+    protected Grid toGrid(JSONArray array, Rules rules) {
+        Grid grid = new Grid(rules);
+        for (int i = 0; i < rules.getCells(); i++) grid.set(i, getMoveID(array.get(i).toString()));
+        return grid;
     }
 
     /**
@@ -153,38 +122,28 @@ public class Structure {
     /**
      * Randomly gets a available spot among all the available spots.
      *
-     * @param buttons To get the game state from.
+     * @param board To get the game state from.
      */
-    protected int getAnyAvailSpot(Button[] buttons) {
-        List<Integer> availableIndexes = new ArrayList<>();
-        for (int i = 0; i < 9; i++) if (buttons[i].getText().equals(" ")) availableIndexes.add(i);
-        return availableIndexes.get(new Random().nextInt(availableIndexes.size()));
+    protected int getAnyAvailSpot(Board board) {
+        return RandomSource.current().nextSetBit(board.getEmpty());
     }
 
     /**
-     * Generates a random number between 0 and 1 and decides the next move accordingly.
+     * Randomly gets a available spot among all the available spots.
      *
-     * @return State of a move.
+     * @param grid To get the game state from.
      */
-    protected States randomMoveGenerator() {
-        switch (new Random().nextInt(2)) {
-            case 0:
-                return States.O;
-            case 1:
-                return States.X;
-            default:
-                return null;
-        }
+    protected int getAnyAvailSpot(Grid grid) {
+        return grid.getRandomEmptyCell(RandomSource.current());
     }
 
     /**
-     * Returns true when if object parameters are equal.
+     * Flips a coin to decide the next move.
      *
-     * @param objects Object Arguments to check for equality on.
+     * @return State of a move.
      */
-    protected boolean equals(Object... objects) {
-        Set<Object> set = new HashSet<>(Arrays.asList(objects));
-        return set.size() == 1;
+    protected States randomMoveGenerator() {
+        return RandomSource.current().nextBoolean() ? States.X : States.O;
     }
 
     /**
@@ -0,0 +1,254 @@
+/*
+ * Copyright 2019 Akshit Sinha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wimi.tictactoe.client.game.algo;
+
+import com.wimi.tictactoe.client.game.Structure.States;
+
+/**
+ * @Description Primitive bitboard of a 3x3 Tic Tac Toe game.
+ * <p>
+ * Each player owns a 9 bit mask where bit {@code i} is set when that player occupies cell {@code i}.
+ * Cells are numbered row by row, the same way as the game buttons.
+ * </p>
+ */
+public final class Board {
+
+    public static final int CELLS = 9;
+    public static final int FULL = (1 << CELLS) - 1; // All nine cells occupied.
+
+    /**
+     * Every line which wins the game. Rows, columns, diagonal and anti-diagonal.
+     */
+    static final int[] WIN_MASKS = {
+            0b000_000_111, 0b000_111_000, 0b111_000_000, // Rows
+            0b001_001_001, 0b010_010_010, 0b100_100_100, // Columns
+            0b100_010_001, 0b001_010_100 // Diagonal and Anti-Diagonal
+    };
+
+    /**
+     * The 8 symmetries of the board. Rotations by 0, 90, 180 and 270 degrees followed by their reflections.
+     * {@code SYMMETRIES[s][cell]} is the cell to which {@code cell} is moved by the symmetry {@code s}.
+     */
+    private static final int[][] SYMMETRIES = {
+            {0, 1, 2, 3, 4, 5, 6, 7, 8},
+            {2, 5, 8, 1, 4, 7, 0, 3, 6},
+            {8, 7, 6, 5, 4, 3, 2, 1, 0},
+            {6, 3, 0, 7, 4, 1, 8, 5, 2},
+            {2, 1, 0, 5, 4, 3, 8, 7, 6},
+            {6, 7, 8, 3, 4, 5, 0, 1, 2},
+            {0, 3, 6, 1, 4, 7, 2, 5, 8},
+            {8, 5, 2, 7, 4, 1, 6, 3, 0}
+    };
+    private static final int[][] INVERSE_SYMMETRIES = new int[SYMMETRIES.length][CELLS];
+    private static final int[][] SYMMETRIC_MASKS = new int[SYMMETRIES.length][FULL + 1]; // Every mask moved by every symmetry.
+    private static final int[] TERNARY = new int[FULL + 1]; // Mask to base 3 number with a digit of 1 for each set bit.
+    private static final States[] WINNERS = {States.NONE, States.X, States.O, States.X}; // By which players have a line.
+
+    static {
+        for (int s = 0; s < SYMMETRIES.length; s++) {
+            for (int cell = 0; cell < CELLS; cell++) INVERSE_SYMMETRIES[s][SYMMETRIES[s][cell]] = cell;
+
+            for (int mask = 0; mask <= FULL; mask++) {
+                int moved = 0;
+                for (int cell = 0; cell < CELLS; cell++) if ((mask & 1 << cell) != 0) moved |= 1 << SYMMETRIES[s][cell];
+                SYMMETRIC_MASKS[s][mask] = moved;
+            }
+        }
+
+        for (int mask = 0; mask <= FULL; mask++) {
+            int power = 1;
+            for (int cell = 0; cell < CELLS; cell++, power *= 3) if ((mask & 1 << cell) != 0) TERNARY[mask] += power;
+        }
+    }
+
+    private int x; // Cells occupied by a Cross.
+    private int o; // Cells occupied by a Nought.
+
+    public Board() {
+    }
+
+    public Board(int x, int o) {
+        this.x = x & FULL;
+        this.o = o & FULL;
+    }
+
+    /**
+     * Returns true if the mask contains any winning line.
+     *
+     * @param mask The cells occupied by one player.
+     */
+    public static boolean isWin(int mask) {
+        return completedLines(mask) != 0;
+    }
+
+    /**
+     * Tests every winning line without branching. A line is complete when masking it out of its own cells
+     * leaves 0, and only 0 turns negative when 1 is taken away from it.
+     *
+     * @param mask The cells occupied by one player.
+     * @return Bit {@code i} set when line {@code i} of {@link #WIN_MASKS} is complete.
+     */
+    static int completedLines(int mask) {
+        int lines = 0;
+        for (int i = 0; i < WIN_MASKS.length; i++) lines |= (((mask & WIN_MASKS[i]) ^ WIN_MASKS[i]) - 1) >>> 31 << i;
+        return lines;
+    }
+
+    /**
+     * Folds the 8 rotations and reflections of a position to one canonical key.
+     * Positions which are symmetric to each other have the same key.
+     *
+     * @param mine   Cells occupied by the player to move.
+     * @param theirs Cells occupied by the other player.
+     * @return The base 3 code of the canonical position (at most 3^9) shifted left by 3
+     * and the symmetry which maps the position to it in the lowest 3 bits.
+     */
+    public static int canonical(int mine, int theirs) {
+        int best = Integer.MAX_VALUE;
+        for (int s = 0; s < SYMMETRIES.length; s++) {
+            int code = TERNARY[SYMMETRIC_MASKS[s][mine]] + 2 * TERNARY[SYMMETRIC_MASKS[s][theirs]];
+            if (code < best >>> 3) best = code << 3 | s;
+        }
+
+        return best;
+    }
+
+    /**
+     * Moves a cell of a position to the matching cell of its canonical position.
+     *
+     * @param key  Key returned by {@link #canonical(int, int)}.
+     * @param cell Cell of the original position.
+     */
+    public static int toCanonicalCell(int key, int cell) {
+        return SYMMETRIES[key & 7][cell];
+    }
+
+    /**
+     * Moves a cell of a canonical position back to the matching cell of the original position.
+     *
+     * @param key  Key returned by {@link #canonical(int, int)}.
+     * @param cell Cell of the canonical position.
+     */
+    public static int fromCanonicalCell(int key, int cell) {
+        return INVERSE_SYMMETRIES[key & 7][cell];
+    }
+
+    /**
+     * Sets the state of a cell.
+     *
+     * @param cell  The cell ID from 0 to 8.
+     * @param state The state to set, NONE clears the cell.
+     */
+    public void set(int cell, States state) {
+        int bit = 1 << cell;
+        x &= ~bit;
+        o &= ~bit;
+
+        if (state == States.X) x |= bit;
+        else if (state == States.O) o |= bit;
+    }
+
+    /**
+     * @return State of the cell.
+     */
+    public States get(int cell) {
+        int bit = 1 << cell;
+        if ((x & bit) != 0) return States.X;
+        else if ((o & bit) != 0) return States.O;
+        else return States.NONE;
+    }
+
+    /**
+     * @return The cells occupied by the given player.
+     */
+    public int mask(States state) {
+        switch (state) {
+            case X:
+                return x;
+            case O:
+                return o;
+            default:
+                return getEmpty();
+        }
+    }
+
+    /**
+     * @return The cells which are not occupied by either player.
+     */
+    public int getEmpty() {
+        return ~(x | o) & FULL;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getO() {
+        return o;
+    }
+
+    /**
+     * @return Total number of moves already made.
+     */
+    public int getTotalMoves() {
+        return Integer.bitCount(x | o);
+    }
+
+    public boolean isFull() {
+        return (x | o) == FULL;
+    }
+
+    /**
+     * @return The player who has a winning line or NONE.
+     */
+    public States getWinner() {
+        return WINNERS[-completedLines(x) >>> 31 | (-completedLines(o) >>> 31) << 1];
+    }
+
+    /**
+     * @return The cells of a completed line of either player, 0 if there is none.
+     */
+    public int getWinningLine() {
+        int lines = completedLines(x) | completedLines(o);
+        return lines == 0 ? 0 : WIN_MASKS[Integer.numberOfTrailingZeros(lines)];
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) return true;
+        if (!(object instanceof Board)) return false;
+
+        Board board = (Board) object;
+        return x == board.x && o == board.o;
+    }
+
+    @Override
+    public int hashCode() {
+        return x << CELLS | o;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(CELLS);
+        for (int i = 0; i < CELLS; i++) {
+            States state = get(i);
+            builder.append(state == States.NONE ? " " : state.toString());
+        }
+
+        return builder.toString();
+    }
+}
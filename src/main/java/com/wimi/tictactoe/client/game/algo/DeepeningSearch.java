@@ -0,0 +1,426 @@
+/*
+ * Copyright 2019 Akshit Sinha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wimi.tictactoe.client.game.algo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Description Parallel iterative deepening negamax for boards which are too large to be searched to the end.
+ * <p>
+ * The board is searched one move deeper on every iteration until the time budget runs out. Positions at the
+ * depth limit are scored by counting the lines which are still open for each player. When the deadline is hit
+ * the best move of the deepest search is returned.
+ * </p>
+ * <p>
+ * The search runs on a fork/join pool with one thread per core. At the root and at every node deep enough to be
+ * worth it, the first move is searched alone and the rest are split across the pool with the window it left
+ * (young brothers wait). A sibling which fails high cuts off the others. Every thread shares one lock-free
+ * {@link GridTable} for the board size.
+ * </p>
+ */
+final class DeepeningSearch {
+
+    static final int WIN = 1_000_000; // Score of a won game, plus the number of empty cells left.
+    private static final int INFINITY = Integer.MAX_VALUE;
+    private static final int MAX_SCORE = WIN - 1; // Heuristic scores stay below a win, so they never look solved.
+    private static final int SPLIT_DEPTH = 3; // Shallower subtrees are searched faster than they can be split.
+    private static final int CHECK_INTERVAL = 255; // Nodes between checks of the deadline and cutoffs.
+
+    private static final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    private static final Map<Rules, GridTable> tables = new ConcurrentHashMap<>();
+
+    private final Rules rules;
+    private final int[][] lines;
+    private final long[] lineWeights; // Weight of an open line by its marks, four times more for every mark.
+    private final GridTable table;
+    private final LongAdder nodes = new LongAdder();
+    private volatile boolean timeUp;
+    private long deadline;
+    private AtomicBoolean cancelled;
+    private int depthReached;
+
+    DeepeningSearch(Rules rules) {
+        this.rules = rules;
+        this.lines = rules.getLines();
+        this.lineWeights = new long[rules.getWinLength() + 1];
+        for (int marks = 1; marks < lineWeights.length; marks++) lineWeights[marks] = 1L << 2 * (marks - 1);
+        this.table = tables.computeIfAbsent(rules, GridTable::new);
+    }
+
+    /**
+     * Searches for the best move until the time budget runs out, the search is cancelled or the game is solved.
+     *
+     * @param cells       The board, it is not changed.
+     * @param player      The ordinal of the player to move.
+     * @param budgetNanos Time the search may take.
+     * @param cancelled   Set to stop the search as if its time was up.
+     * @return The best cell found.
+     */
+    int search(byte[] cells, byte player, long budgetNanos, AtomicBoolean cancelled) {
+        deadline = System.nanoTime() + budgetNanos;
+        this.cancelled = cancelled;
+        timeUp = false;
+
+        int empties = 0;
+        for (byte cell : cells) if (cell == 0) empties++;
+
+        long hash = table.hash(cells, player);
+        Worker root = new Worker(cells.clone(), null);
+        int[] rootMoves = new int[cells.length];
+        int count = root.generateMoves(rootMoves, GridTable.cell(table.get(hash)));
+        int bestCell = rootMoves[0];
+
+        for (int depth = 1; depth <= empties; depth++) {
+            int[] result = pool.invoke(new RootTask(root, rootMoves, count, player, hash, empties, depth));
+
+            // Moves searched before the deadline are trusted, the best move of the last iteration is searched first.
+            if (result[1] >= 0) bestCell = result[1];
+            if (timeUp) break;
+
+            depthReached = depth;
+            table.put(hash, GridTable.EXACT, result[0], depth, bestCell);
+            if (Math.abs(result[0]) >= WIN) break; // The game is solved.
+
+            moveToFront(rootMoves, count, bestCell);
+        }
+
+        return bestCell;
+    }
+
+    /**
+     * Heuristic score of a position. Every line which only one player has marks on can still be completed by
+     * that player and is worth more the more marks it already has.
+     *
+     * @return Score from the perspective of the player to move, always closer to 0 than a win.
+     */
+    private int evaluate(byte[] cells, byte player) {
+        long score = 0;
+        for (int[] line : lines) {
+            int mine = 0;
+            int theirs = 0;
+            for (int cell : line) {
+                if (cells[cell] == player) mine++;
+                else if (cells[cell] != 0) theirs++;
+            }
+
+            if (theirs == 0) score += lineWeights[mine];
+            else if (mine == 0) score -= lineWeights[theirs];
+        }
+
+        return (int) Math.max(-MAX_SCORE, Math.min(MAX_SCORE, score));
+    }
+
+    private void moveToFront(int[] moves, int count, int cell) {
+        for (int i = 0; i < count; i++) {
+            if (moves[i] == cell) {
+                System.arraycopy(moves, 0, moves, 1, i);
+                moves[0] = cell;
+                return;
+            }
+        }
+    }
+
+    long getNodes() {
+        return nodes.sum();
+    }
+
+    /**
+     * @return The depth of the deepest search which was finished.
+     */
+    int getDepthReached() {
+        return depthReached;
+    }
+
+    /**
+     * Siblings which are searched in parallel. Once one of them fails high the others are not needed anymore.
+     */
+    private static final class SplitPoint {
+
+        private final SplitPoint parent;
+        private final int beta;
+        private volatile boolean cutoff;
+
+        private SplitPoint(SplitPoint parent, int beta) {
+            this.parent = parent;
+            this.beta = beta;
+        }
+
+        /**
+         * @return True if this or any enclosing split point was cut off.
+         */
+        private boolean isCutoff() {
+            for (SplitPoint point = this; point != null; point = point.parent) if (point.cutoff) return true;
+            return false;
+        }
+    }
+
+    /**
+     * Searches one subtree on its own copy of the board. The board and move buffers are changed and restored
+     * during the search, so a worker is never used by two threads at once.
+     */
+    private final class Worker {
+
+        private final byte[] cells;
+        private final SplitPoint split; // Split point the worker was forked from, null at the root.
+        private final int[][] moveBuffers; // Moves of each ply, allocated once when the ply is first reached.
+        private long localNodes;
+        private boolean aborted;
+
+        private Worker(byte[] cells, SplitPoint split) {
+            this.cells = cells;
+            this.split = split;
+            this.moveBuffers = new int[cells.length + 1][];
+        }
+
+        private int negamax(byte player, long hash, int empties, int depth, int ply, int alpha, int beta) {
+            if ((++localNodes & CHECK_INTERVAL) == 0) checkAborted();
+            if (aborted || empties == 0) return 0;
+            if (depth == 0) return evaluate(cells, player);
+
+            long entry = table.get(hash);
+            int firstCell = -1;
+            if (entry != GridTable.NONE) {
+                int stored = GridTable.score(entry);
+                if (GridTable.depth(entry) >= depth) {
+                    switch (GridTable.flag(entry)) {
+                        case GridTable.EXACT:
+                            return stored;
+                        case GridTable.LOWER:
+                            alpha = Math.max(alpha, stored);
+                            break;
+                        case GridTable.UPPER:
+                            beta = Math.min(beta, stored);
+                            break;
+                    }
+
+                    if (alpha >= beta) return stored;
+                }
+
+                firstCell = GridTable.cell(entry); // Best move of an earlier search is tried first.
+            }
+
+            int originalAlpha = alpha;
+            int[] moves = buffer(ply);
+            int count = generateMoves(moves, firstCell);
+            int max = -INFINITY;
+            int bestCell = -1;
+
+            for (int i = 0; i < count; i++) {
+                if (i == 1 && depth >= SPLIT_DEPTH) { // The eldest brother has set the window, split the rest.
+                    int[] result = split(moves, 1, count, player, hash, empties, depth, ply + 1, alpha, beta);
+                    if (result[0] > max) {
+                        max = result[0];
+                        bestCell = result[1];
+                    }
+                    break;
+                }
+
+                int value = scoreMove(moves[i], player, hash, empties, depth, ply + 1, alpha, beta);
+                if (aborted) return 0;
+
+                if (value > max) {
+                    max = value;
+                    bestCell = moves[i];
+                }
+
+                alpha = Math.max(alpha, max);
+                if (alpha >= beta) break; // The other player would never allow this branch.
+            }
+
+            if (aborted) return 0;
+
+            int flag = max <= originalAlpha ? GridTable.UPPER : max >= beta ? GridTable.LOWER : GridTable.EXACT;
+            table.put(hash, flag, max, depth, bestCell);
+            return max;
+        }
+
+        /**
+         * Searches moves {@code from} to {@code to} in parallel, each on a copy of the board.
+         *
+         * @return The best score and its cell, or a score of -INFINITY if no move finished.
+         */
+        private int[] split(int[] moves, int from, int to, byte player, long hash, int empties, int depth, int ply,
+                            int alpha, int beta) {
+            SplitPoint point = new SplitPoint(split, beta);
+            List<MoveTask> tasks = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                Worker worker = new Worker(cells.clone(), point);
+                tasks.add(new MoveTask(worker, point, moves[i], player, hash, empties, depth, ply, alpha, beta));
+            }
+
+            ForkJoinTask.invokeAll(tasks);
+            checkAborted();
+
+            int[] best = {-INFINITY, -1};
+            for (MoveTask task : tasks) {
+                Integer value = task.join();
+                if (value != null && value > best[0]) { // Siblings which were cut off have no score.
+                    best[0] = value;
+                    best[1] = task.cell;
+                }
+            }
+
+            return best;
+        }
+
+        /**
+         * Scores a move for the player making it. Only the lines through the move are checked for a win.
+         */
+        private int scoreMove(int cell, byte player, long hash, int empties, int depth, int ply, int alpha, int beta) {
+            cells[cell] = player;
+            int value = rules.isWin(cells, cell) ? WIN + empties - 1
+                    : -negamax((byte) (3 - player), hash ^ table.moveKey(cell, player), empties - 1, depth - 1, ply,
+                    -beta, -alpha); // X is 1 and O is 2.
+            cells[cell] = 0;
+
+            return value;
+        }
+
+        private void checkAborted() {
+            if (System.nanoTime() > deadline || cancelled.get()) timeUp = true;
+            aborted = timeUp || (split != null && split.isCutoff());
+        }
+
+        private int[] buffer(int ply) {
+            if (moveBuffers[ply] == null) moveBuffers[ply] = new int[cells.length];
+            return moveBuffers[ply];
+        }
+
+        /**
+         * Gets the empty cells worth searching, from the center of the board to its edges. On large boards only
+         * cells next to a mark are searched as the others hardly ever matter.
+         *
+         * @param firstCell Cell to search first, -1 for none.
+         * @return Number of moves written to the buffer.
+         */
+        private int generateMoves(int[] moves, int firstCell) {
+            int count = 0;
+            boolean nearOnly = rules.getSize() > 5;
+            for (int cell : rules.getMoveOrder()) {
+                if (cells[cell] == 0 && (!nearOnly || rules.hasNeighbour(cells, cell))) moves[count++] = cell;
+            }
+
+            if (count == 0) { // Empty board, or nothing near a mark.
+                for (int cell : rules.getMoveOrder()) if (cells[cell] == 0) moves[count++] = cell;
+            }
+
+            if (firstCell >= 0) moveToFront(moves, count, firstCell);
+            return count;
+        }
+
+        private void flushNodes() {
+            nodes.add(localNodes);
+            localNodes = 0;
+        }
+    }
+
+    /**
+     * Searches one move of a split point.
+     */
+    private final class MoveTask extends RecursiveTask<Integer> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Worker worker;
+        private final SplitPoint point;
+        private final int cell;
+        private final byte player;
+        private final long hash;
+        private final int empties, depth, ply, alpha, beta;
+
+        private MoveTask(Worker worker, SplitPoint point, int cell, byte player, long hash, int empties, int depth,
+                         int ply, int alpha, int beta) {
+            this.worker = worker;
+            this.point = point;
+            this.cell = cell;
+            this.player = player;
+            this.hash = hash;
+            this.empties = empties;
+            this.depth = depth;
+            this.ply = ply;
+            this.alpha = alpha;
+            this.beta = beta;
+        }
+
+        /**
+         * @return The score of the move, or null if the search was aborted before it finished.
+         */
+        @Override
+        protected Integer compute() {
+            if (point.isCutoff() || timeUp) return null;
+
+            int value = worker.scoreMove(cell, player, hash, empties, depth, ply, alpha, beta);
+            worker.flushNodes();
+            if (worker.aborted) return null;
+
+            if (value >= point.beta) point.cutoff = true;
+            return value;
+        }
+    }
+
+    /**
+     * Searches every move of the root one iteration deep. The first move is searched alone to get a score for
+     * the others to beat, the rest are split across the pool.
+     */
+    private final class RootTask extends RecursiveTask<int[]> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Worker root;
+        private final int[] moves;
+        private final int count;
+        private final byte player;
+        private final long hash;
+        private final int empties, depth;
+
+        private RootTask(Worker root, int[] moves, int count, byte player, long hash, int empties, int depth) {
+            this.root = root;
+            this.moves = moves;
+            this.count = count;
+            this.player = player;
+            this.hash = hash;
+            this.empties = empties;
+            this.depth = depth;
+        }
+
+        /**
+         * @return The best score of the iteration and its cell, -1 if the deadline was hit before any move finished.
+         */
+        @Override
+        protected int[] compute() {
+            int value = root.scoreMove(moves[0], player, hash, empties, depth, 1, -INFINITY, INFINITY);
+            root.flushNodes();
+            if (root.aborted) return new int[]{-INFINITY, -1};
+
+            int[] best = {value, moves[0]};
+            if (count > 1) {
+                int[] rest = root.split(moves, 1, count, player, hash, empties, depth, 1, value, INFINITY);
+                if (rest[0] > best[0]) best = rest;
+            }
+
+            return best;
+        }
+    }
+}
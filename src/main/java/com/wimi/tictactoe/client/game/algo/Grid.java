@@ -0,0 +1,150 @@
+/*
+ * Copyright 2019 Akshit Sinha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wimi.tictactoe.client.game.algo;
+
+import com.wimi.tictactoe.client.game.Structure.States;
+import com.wimi.tictactoe.util.RandomSource;
+
+/**
+ * @Description Board of any size played by {@link Rules}.
+ * Each cell holds the ordinal of its {@link States}, 0 for an empty cell.
+ */
+public final class Grid {
+
+    private static final States[] STATES = States.values();
+
+    private final Rules rules;
+    private final byte[] cells;
+    private final long[] empty; // Bit set of the empty cells, 64 cells per word.
+    private int moves;
+
+    public Grid(Rules rules) {
+        this.rules = rules;
+        this.cells = new byte[rules.getCells()];
+        this.empty = new long[(cells.length + 63) / 64];
+        for (int cell = 0; cell < cells.length; cell++) empty[cell >>> 6] |= 1L << cell;
+    }
+
+    private Grid(Grid grid) {
+        this.rules = grid.rules;
+        this.cells = grid.cells.clone();
+        this.empty = grid.empty.clone();
+        this.moves = grid.moves;
+    }
+
+    /**
+     * @return An independent copy of the board, used to hand the game to the computer.
+     */
+    public Grid copy() {
+        return new Grid(this);
+    }
+
+    /**
+     * Sets the state of a cell.
+     *
+     * @param cell  The cell ID.
+     * @param state The state to set, NONE clears the cell.
+     */
+    public void set(int cell, States state) {
+        if (cells[cell] != 0) moves--;
+        cells[cell] = (byte) state.ordinal();
+        if (cells[cell] != 0) {
+            moves++;
+            empty[cell >>> 6] &= ~(1L << cell);
+        } else empty[cell >>> 6] |= 1L << cell;
+    }
+
+    public States get(int cell) {
+        return STATES[cells[cell]];
+    }
+
+    public boolean isEmpty(int cell) {
+        return cells[cell] == 0;
+    }
+
+    /**
+     * @return True if the mark at the cell completes a line.
+     */
+    public boolean isWinningMove(int cell) {
+        return rules.isWin(cells, cell);
+    }
+
+    /**
+     * Scans the whole board for a completed line.
+     *
+     * @param line Filled with the cells of the line, needs room for the win length of the rules.
+     */
+    public boolean findWinningLine(int[] line) {
+        return rules.findWinningLine(cells, line);
+    }
+
+    /**
+     * Picks one of the empty cells, each with the same chance.
+     *
+     * @return The cell, or -1 if the board is full.
+     */
+    public int getRandomEmptyCell(RandomSource random) {
+        if (isFull()) return -1;
+
+        int n = random.nextInt(cells.length - moves);
+        for (int word = 0; ; word++) {
+            int count = Long.bitCount(empty[word]);
+            if (n < count) return word << 6 | RandomSource.nthSetBit(empty[word], n);
+            n -= count;
+        }
+    }
+
+    /**
+     * @return Total number of moves already made.
+     */
+    public int getTotalMoves() {
+        return moves;
+    }
+
+    public boolean isFull() {
+        return moves == cells.length;
+    }
+
+    public Rules getRules() {
+        return rules;
+    }
+
+    /**
+     * Converts a classic board to a bitboard.
+     */
+    public Board toBoard() {
+        if (!rules.isClassic()) throw new IllegalStateException("Only a classic board can be converted: " + rules);
+
+        Board board = new Board();
+        for (int i = 0; i < cells.length; i++) board.set(i, STATES[cells[i]]);
+        return board;
+    }
+
+    /**
+     * @return The cells of the board, used by the search which makes and takes back moves on them.
+     */
+    byte[] getCellArray() {
+        return cells;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(cells.length);
+        for (byte cell : cells) builder.append(cell == 0 ? " " : STATES[cell].toString());
+        return builder.toString();
+    }
+}
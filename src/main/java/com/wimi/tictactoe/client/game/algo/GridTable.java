@@ -0,0 +1,107 @@
+/*
+ * Copyright 2019 Akshit Sinha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wimi.tictactoe.client.game.algo;
+
+import java.util.Random;
+
+/**
+ * @Description Lock-free transposition table shared by every thread searching boards of one size.
+ * <p>
+ * Positions are hashed with Zobrist keys. Each slot holds the data and the hash XORed with the data, written
+ * without locks. A slot which was torn by two threads writing at the same time fails the XOR check and is
+ * treated as empty. Slots are always replaced by the newest search.
+ * </p>
+ */
+final class GridTable {
+
+    static final long NONE = 0; // Position not searched yet.
+    static final int EXACT = 1; // Score is the exact negamax value for the depth.
+    static final int LOWER = 2; // Score is a lower bound, the search was cut off.
+    static final int UPPER = 3; // Score is an upper bound, no move reached alpha.
+
+    private static final int SIZE = 1 << 18;
+
+    private final long[] checks = new long[SIZE]; // Hash XOR data of each slot.
+    private final long[] data = new long[SIZE];
+    private final long[] keys; // Zobrist key of each cell and player.
+    private final long sideKey; // Toggled on every move so that the player to move is part of the hash.
+
+    GridTable(Rules rules) {
+        Random random = new Random(rules.hashCode());
+        keys = new long[rules.getCells() * 2];
+        for (int i = 0; i < keys.length; i++) keys[i] = random.nextLong();
+        sideKey = random.nextLong();
+    }
+
+    /**
+     * Hashes a whole position. The search updates it with {@link #moveKey(int, byte)} after that.
+     *
+     * @param player The ordinal of the player to move.
+     */
+    long hash(byte[] cells, byte player) {
+        long hash = player == 2 ? sideKey : 0;
+        for (int cell = 0; cell < cells.length; cell++) if (cells[cell] != 0) hash ^= moveKey(cell, cells[cell]);
+        return hash;
+    }
+
+    /**
+     * @return The key to XOR the hash with when a player makes a move at a cell, the player to move changes with it.
+     */
+    long moveKey(int cell, byte player) {
+        return keys[cell * 2 + player - 1] ^ sideKey;
+    }
+
+    /**
+     * @return The packed entry of the position or {@link #NONE}.
+     */
+    long get(long hash) {
+        int index = (int) hash & (SIZE - 1);
+        long entry = data[index];
+        return (checks[index] ^ entry) == hash ? entry : NONE;
+    }
+
+    /**
+     * Stores the result of a search.
+     *
+     * @param flag  {@link #EXACT}, {@link #LOWER} or {@link #UPPER}.
+     * @param score Score from the perspective of the player to move.
+     * @param depth Number of moves the position was searched deep.
+     * @param cell  The best cell or -1.
+     */
+    void put(long hash, int flag, int score, int depth, int cell) {
+        int index = (int) hash & (SIZE - 1);
+        long entry = (score & 0xFFFFFFFFL) | (long) Math.min(depth, 255) << 32 | (long) flag << 40 | (long) (cell + 1) << 42;
+        checks[index] = hash ^ entry;
+        data[index] = entry;
+    }
+
+    static int score(long entry) {
+        return (int) entry;
+    }
+
+    static int depth(long entry) {
+        return (int) (entry >>> 32 & 0xFF);
+    }
+
+    static int flag(long entry) {
+        return (int) (entry >>> 40 & 3);
+    }
+
+    static int cell(long entry) {
+        return (int) (entry >>> 42 & 0xFF) - 1;
+    }
+}
@@ -18,9 +18,10 @@ package com.wimi.tictactoe.client.game.algo;
 
 import com.wimi.tictactoe.client.game.Structure;
 import com.wimi.tictactoe.util.Console;
-import javafx.scene.control.Button;
+import com.wimi.tictactoe.util.LogLevel;
+import com.wimi.tictactoe.util.RandomSource;
 
-import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Used when the game is being played in INTERMEDIATE difficulty.
@@ -29,28 +30,45 @@ public class InterMove extends Structure {
 
     private final int cellID;
 
-    public InterMove(Button[] buttons, States currentMove) {
-        cellID = interMoveGen(buttons, currentMove);
-        Console.log("Computer is making a move at " + cellID);
+    public InterMove(Board board, States currentMove) {
+        cellID = interMoveGen(board, currentMove);
+        if (Console.isEnabled(LogLevel.DEBUG))
+            Console.log(LogLevel.DEBUG, "Computer is making a move", "cell", cellID);
+    }
+
+    /**
+     * @param budgetMillis Time the search of a board larger than the classic one may take.
+     */
+    public InterMove(Grid grid, States currentMove, long budgetMillis) {
+        this(grid, currentMove, budgetMillis, new AtomicBoolean());
+    }
+
+    /**
+     * @param budgetMillis Time the search of a board larger than the classic one may take.
+     * @param cancelled    Set to stop the search early.
+     */
+    public InterMove(Grid grid, States currentMove, long budgetMillis, AtomicBoolean cancelled) {
+        cellID = getRNG() ? new Minimax(grid, currentMove, budgetMillis, cancelled).getCellID() : getAnyAvailSpot(grid);
+        if (Console.isEnabled(LogLevel.DEBUG))
+            Console.log(LogLevel.DEBUG, "Computer is making a move", "cell", cellID);
     }
 
     /**
      * Has a 70% chance of using Minimax algorithm to return the optimally best move
      * or else returns any random available spot.
      */
-    private int interMoveGen(Button[] gameButtons, States currentMove) {
+    private int interMoveGen(Board board, States currentMove) {
         if (getRNG()) {
-            Minimax minimax = new Minimax(gameButtons, currentMove);
+            Minimax minimax = new Minimax(board, currentMove);
             return minimax.getCellID();
-        } else return getAnyAvailSpot(gameButtons);
+        } else return getAnyAvailSpot(board);
     }
 
     /**
      * RNGs and has a 70% chance to return true.
      */
     private boolean getRNG() {
-        Random random = new Random();
-        return random.nextFloat() <= 0.7f;
+        return RandomSource.current().nextFloat() <= 0.7f;
     }
 
     public int getCellID() {
@@ -18,13 +18,30 @@ package com.wimi.tictactoe.client.game.algo;
 
 import com.wimi.tictactoe.client.game.Structure;
 import com.wimi.tictactoe.util.Console;
-import javafx.scene.control.Button;
+import com.wimi.tictactoe.util.Histogram;
+import com.wimi.tictactoe.util.LogLevel;
+import com.wimi.tictactoe.util.Metrics;
+
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Used when the game is being played in IMPOSSIBLE difficulty.
  */
 public class Minimax extends Structure {
 
+    /**
+     * Order in which the cells are searched. Center, corners and then edges.
+     * Stronger moves are tried first so that alpha-beta pruning cuts off more branches.
+     */
+    static final int[] MOVE_ORDER = {4, 0, 2, 6, 8, 1, 3, 5, 7};
+
+    /**
+     * Shared by every search in the JVM so that positions searched on earlier moves
+     * and in earlier games are not searched again.
+     */
+    private static final TranspositionTable table = new TranspositionTable();
+    private static final Histogram nodes = Metrics.histogram("ai.nodes.minimax"); // Positions searched for each move.
+
     private final int cellID;
     private final States aiMove;
     private int minimaxCalls;
@@ -32,106 +49,196 @@ public class Minimax extends Structure {
     /**
      * Gets the best cell to make a move at using the Minimax algorithm.
      *
+     * @param board       The bitboard of the current game.
      * @param currentMove The move to be made by the AI.
      */
-    public Minimax(Button[] buttons, States currentMove) {
-        String[] strings = new String[9];
-        for (int i = 0; i < 9; i++) strings[i] = buttons[i].getText();
+    public Minimax(Board board, States currentMove) {
+        aiMove = currentMove;
+        cellID = getBestMove(board.mask(aiMove), board.mask(getConjugateMove(aiMove)));
+        nodes.record(minimaxCalls);
+        if (Console.isEnabled(LogLevel.DEBUG))
+            Console.log(LogLevel.DEBUG, "Computer is making a move", "cell", cellID, "calls", minimaxCalls);
+    }
+
+    /**
+     * Gets the best cell to make a move at using the Minimax algorithm on a board of any size.
+     * A classic board is searched to the end on its bitboard. Larger boards are searched deeper and deeper
+     * until the time budget runs out.
+     *
+     * @param grid         The board of the current game.
+     * @param currentMove  The move to be made by the AI.
+     * @param budgetMillis Time the search of a larger board may take.
+     */
+    public Minimax(Grid grid, States currentMove, long budgetMillis) {
+        this(grid, currentMove, budgetMillis, new AtomicBoolean());
+    }
 
+    /**
+     * Gets the best cell to make a move at on a board of any size, stopping the search of a larger board early
+     * when it is cancelled.
+     *
+     * @param grid         The board of the current game.
+     * @param currentMove  The move to be made by the AI.
+     * @param budgetMillis Time the search of a larger board may take.
+     * @param cancelled    Set to stop the search early.
+     */
+    public Minimax(Grid grid, States currentMove, long budgetMillis, AtomicBoolean cancelled) {
         aiMove = currentMove;
-        cellID = getBestMove(strings);
-        Console.log("Computer is making a move at " + cellID + " with " + minimaxCalls + " calls.");
+        if (grid.getRules().isClassic()) {
+            Board board = grid.toBoard();
+            cellID = getBestMove(board.mask(aiMove), board.mask(getConjugateMove(aiMove)));
+            nodes.record(minimaxCalls);
+            if (Console.isEnabled(LogLevel.DEBUG))
+                Console.log(LogLevel.DEBUG, "Computer is making a move", "cell", cellID, "calls", minimaxCalls);
+        } else {
+            DeepeningSearch search = new DeepeningSearch(grid.getRules());
+            cellID = search.search(grid.copy().getCellArray(), (byte) aiMove.ordinal(), budgetMillis * 1_000_000, cancelled);
+            minimaxCalls = (int) search.getNodes();
+            nodes.record(search.getNodes());
+            if (Console.isEnabled(LogLevel.DEBUG))
+                Console.log(LogLevel.DEBUG, "Computer is making a move", "cell", cellID, "calls", minimaxCalls,
+                        "depth", search.getDepthReached());
+        }
+    }
+
+    /**
+     * Searches a position without the opening book and without logging.
+     * Used by the benchmarks to measure the search itself.
+     *
+     * @param ai    Cells occupied by the player to move.
+     * @param human Cells occupied by the other player.
+     */
+    Minimax(int ai, int human) {
+        aiMove = States.NONE;
+        cellID = search(ai, human);
+    }
+
+    /**
+     * Forgets every position searched so far, so that the next search starts cold.
+     */
+    static void clearTable() {
+        table.clear();
     }
 
     /**
      * Description:
      * Minimax is a recursive algorithm which is used to choose an optimal move
      * for a player assuming that the other player is also playing optimally.
+     * It is written in the negamax form, the score of a position for one player is the negated score for the other.
+     * Branches which cannot change the result are cut off with alpha-beta pruning
+     * and results are remembered in the transposition table.
+     *
+     * @param mine   Cells occupied by the player to move.
+     * @param theirs Cells occupied by the other player.
+     * @param alpha  Best score the player to move is already assured of.
+     * @param beta   Best score the other player is already assured of.
+     * @return Score from the perspective of the player to move.
      */
-    private int minimax(String[] gameBoard, boolean maximizer) {
-        int score = evaluate(gameBoard, aiMove);
+    private int minimax(int mine, int theirs, int alpha, int beta) {
+        int score = evaluate(mine, theirs);
         minimaxCalls++;
 
-        if (score == 10) return score;
-        else if (score == -10) return score;
-        else if (!isMovesLeft(gameBoard)) return 0;
-
-        if (maximizer) {
-            int max = Integer.MIN_VALUE;
+        if (score != 0) return score;
+
+        int empty = ~(mine | theirs) & Board.FULL;
+        if (empty == 0) return 0;
+
+        int key = Board.canonical(mine, theirs);
+        int entry = table.get(key);
+        int firstCell = -1;
+        if (TranspositionTable.flag(entry) != TranspositionTable.EMPTY) {
+            int stored = TranspositionTable.score(entry);
+            switch (TranspositionTable.flag(entry)) {
+                case TranspositionTable.EXACT:
+                    return stored;
+                case TranspositionTable.LOWER:
+                    alpha = Math.max(alpha, stored);
+                    break;
+                case TranspositionTable.UPPER:
+                    beta = Math.min(beta, stored);
+                    break;
+            }
 
-            for (int i = 0; i < gameBoard.length; i++) {
-                if (gameBoard[i].equals(" ")) {
-                    gameBoard[i] = aiMove.toString();
+            if (alpha >= beta) return stored;
+            firstCell = TranspositionTable.cell(key, entry); // Best move of an earlier search is tried first.
+        }
 
-                    max = Math.max(max, minimax(gameBoard, false));
-                    gameBoard[i] = " ";
-                }
-            }
+        int originalAlpha = alpha;
+        int max = Integer.MIN_VALUE;
+        int bestCell = -1;
 
-            return max;
-        } else {
-            int min = Integer.MAX_VALUE;
+        for (int i = -1; i < MOVE_ORDER.length; i++) {
+            int cell = i < 0 ? firstCell : MOVE_ORDER[i];
+            if (cell < 0 || (i >= 0 && cell == firstCell)) continue;
 
-            for (int i = 0; i < gameBoard.length; i++) {
-                if (gameBoard[i].equals(" ")) {
-                    gameBoard[i] = getConjugateMove(aiMove).toString();
+            int bit = 1 << cell;
+            if ((empty & bit) == 0) continue;
 
-                    min = Math.min(min, minimax(gameBoard, true));
-                    gameBoard[i] = " ";
-                }
+            int value = -minimax(theirs, mine | bit, -beta, -alpha);
+            if (value > max) {
+                max = value;
+                bestCell = cell;
             }
 
-            return min;
+            alpha = Math.max(alpha, max);
+            if (alpha >= beta) break; // The other player would never allow this branch.
         }
+
+        int flag = max <= originalAlpha ? TranspositionTable.UPPER
+                : max >= beta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+        table.put(key, flag, max, bestCell);
+
+        return max;
     }
 
-    private int getBestMove(String[] board) {
-        int bestValue = Integer.MIN_VALUE;
+    /**
+     * Looks up the position in the opening book first, otherwise searches it.
+     */
+    private int getBestMove(int ai, int human) {
+        int bookCell = OpeningBook.lookup(ai, human);
+        return bookCell >= 0 ? bookCell : search(ai, human);
+    }
+
+    /**
+     * Searches every move of the root with a full window and stores the exact result. A position which was already
+     * searched to its exact score is answered from the transposition table without searching again.
+     */
+    private int search(int ai, int human) {
+        int key = Board.canonical(ai, human);
+        int entry = table.get(key);
+        if (TranspositionTable.flag(entry) == TranspositionTable.EXACT && TranspositionTable.cell(key, entry) >= 0)
+            return TranspositionTable.cell(key, entry);
+
+        int empty = ~(ai | human) & Board.FULL;
+        int bestValue = -Integer.MAX_VALUE;
         int bestCell = 0;
 
-        for (int i = 0; i < board.length; i++) {
-            if (board[i].equals(" ")) {
-                board[i] = aiMove.toString();
-                int moveValue = minimax(board, false);
+        for (int cell : MOVE_ORDER) {
+            int bit = 1 << cell;
+            if ((empty & bit) == 0) continue;
 
-                board[i] = " ";
-                if (moveValue > bestValue) {
-                    bestCell = i;
-                    bestValue = moveValue;
-                }
+            int moveValue = -minimax(human, ai | bit, -Integer.MAX_VALUE, -bestValue);
+            if (moveValue > bestValue) {
+                bestCell = cell;
+                bestValue = moveValue;
             }
         }
 
+        table.put(key, TranspositionTable.EXACT, bestValue, bestCell);
         return bestCell;
     }
 
-    private boolean isMovesLeft(String[] strings) {
-        for (String string : strings) if (string.equals(" ")) return true;
-        return false;
-    }
-
-    private int evaluate(String[] strings, States currentMove) {
-        for (int i = 0; i < 9; i += 3) { // Check in rows
-            if (equals(strings[i], strings[i + 1], strings[i + 2]) && !strings[i].equals(" ")) {
-                if (strings[i].equals(currentMove.toString())) return +10;
-                else if (strings[i].equals(getConjugateMove(currentMove).toString())) return -10;
-            }
-        }
-
-        for (int i = 0; i < 3; i++) { // Check in columns
-            if (equals(strings[i], strings[i + 3], strings[i + 6]) && !strings[i].equals(" ")) {
-                if (strings[i].equals(currentMove.toString())) return +10;
-                else if (strings[i].equals(getConjugateMove(currentMove).toString())) return -10;
-            }
-        }
-
-        if (equals(strings[0], strings[4], strings[8]) && !strings[0].equals(" ")) { // Check Diagonal
-            if (strings[0].equals(currentMove.toString())) return +10;
-            else if (strings[0].equals(getConjugateMove(currentMove).toString())) return -10;
-        } else if (equals(strings[2], strings[4], strings[6]) && !strings[2].equals(" ")) { // Check Anti-Diagonal
-            if (strings[2].equals(currentMove.toString())) return +10;
-            else if (strings[2].equals(getConjugateMove(currentMove).toString())) return -10;
-        }
+    /**
+     * Scores a finished game from the perspective of the player to move.
+     * A win is worth 10 and one more for each cell left empty so that faster wins and slower losses are preferred.
+     * Scores do not depend on where the search started from, which lets the transposition table share them.
+     *
+     * @param mine   Cells occupied by the player to move.
+     * @param theirs Cells occupied by the other player.
+     */
+    private int evaluate(int mine, int theirs) {
+        if (Board.isWin(theirs)) return -10 - Integer.bitCount(~(mine | theirs) & Board.FULL);
+        else if (Board.isWin(mine)) return 10 + Integer.bitCount(~(mine | theirs) & Board.FULL);
 
         return 0;
     }
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2019 Akshit Sinha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wimi.tictactoe.client.game.algo;
+
+import com.wimi.tictactoe.client.game.Structure;
+import com.wimi.tictactoe.util.Console;
+import com.wimi.tictactoe.util.Histogram;
+import com.wimi.tictactoe.util.LogLevel;
+import com.wimi.tictactoe.util.Metrics;
+import com.wimi.tictactoe.util.RandomSource;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Used when the game is being played in MONTE_CARLO difficulty.
+ * <p>
+ * Monte Carlo tree search with UCT selection. Every playout walks down the tree to the most promising node, adds
+ * one new move to it, plays random moves until the game ends and scores every node on the way with the result.
+ * The more playouts per move, the stronger the computer plays. The tree is kept in flat arrays sized by the
+ * playout budget, so playouts do not allocate.
+ * </p>
+ */
+public class MonteCarlo extends Structure {
+
+    public static final int MIN_PLAYOUTS = 100;
+    public static final int MAX_PLAYOUTS = 20000;
+    public static final int DEFAULT_PLAYOUTS = 2000;
+
+    private static final double EXPLORATION = Math.sqrt(2); // UCT constant, higher explores more.
+    private static final byte DRAW = 3; // Result of a full board, X and O are their ordinals.
+    private static final Histogram treeNodes = Metrics.histogram("ai.nodes.montecarlo"); // Nodes of the tree of each move.
+
+    private final Rules rules;
+    private final int[] moveOrder;
+    private final byte[] rootCells;
+    private final byte[] cells; // Board of the current playout.
+    private final int[] empties; // Empty cells of the current playout.
+
+    // The tree, one slot of each array per node. The root is node 0.
+    private final int[] parent;
+    private final int[] firstChild;
+    private final int[] nextSibling;
+    private final int[] cell; // Move which leads to the node.
+    private final byte[] mover; // Player who made that move.
+    private final byte[] result; // Winner if the game ended with the move, otherwise 0.
+    private final int[] untried; // Index of the next move to expand in the move order.
+    private final int[] visits;
+    private final int[] score; // Two points for each won playout and one for each drawn one.
+    private int nodes;
+
+    private final int cellID;
+
+    /**
+     * Gets the cell to make a move at by running Monte Carlo tree search.
+     *
+     * @param grid        The board of the current game.
+     * @param currentMove The move to be made by the AI.
+     * @param playouts    Number of random games played to choose the move.
+     */
+    public MonteCarlo(Grid grid, States currentMove, int playouts) {
+        this(grid, currentMove, playouts, new AtomicBoolean());
+    }
+
+    /**
+     * Gets the cell to make a move at by running Monte Carlo tree search, stopping early when it is cancelled.
+     *
+     * @param grid        The board of the current game.
+     * @param currentMove The move to be made by the AI.
+     * @param playouts    Number of random games played to choose the move.
+     * @param cancelled   Set to stop playing out games.
+     */
+    public MonteCarlo(Grid grid, States currentMove, int playouts, AtomicBoolean cancelled) {
+        rules = grid.getRules();
+        moveOrder = rules.getMoveOrder();
+        rootCells = grid.getCellArray().clone();
+        cells = new byte[rootCells.length];
+        empties = new int[rootCells.length];
+
+        int capacity = playouts + 1; // Every playout adds at most one node.
+        parent = new int[capacity];
+        firstChild = new int[capacity];
+        nextSibling = new int[capacity];
+        cell = new int[capacity];
+        mover = new byte[capacity];
+        result = new byte[capacity];
+        untried = new int[capacity];
+        visits = new int[capacity];
+        score = new int[capacity];
+
+        cellID = search(grid, (byte) currentMove.ordinal(), playouts, cancelled);
+        treeNodes.record(nodes);
+        if (Console.isEnabled(LogLevel.DEBUG))
+            Console.log(LogLevel.DEBUG, "Computer is making a move", "cell", cellID, "playouts", playouts);
+    }
+
+    private int search(Grid grid, byte player, int playouts, AtomicBoolean cancelled) {
+        nodes = 0;
+        newNode(-1, -1, (byte) (3 - player), (byte) 0); // X is 1 and O is 2.
+
+        for (int i = 0; i < playouts && !cancelled.get(); i++) {
+            System.arraycopy(rootCells, 0, cells, 0, cells.length);
+            int node = select();
+            if (result[node] == 0) node = expand(node);
+            byte winner = result[node] != 0 ? result[node] : playout((byte) (3 - mover[node]));
+            backPropagate(node, winner);
+        }
+
+        int best = -1;
+        for (int child = firstChild[0]; child != 0; child = nextSibling[child])
+            if (best < 0 || visits[child] > visits[best]) best = child;
+
+        return best < 0 ? getAnyAvailSpot(grid) : cell[best];
+    }
+
+    /**
+     * Walks down the tree from the root, playing each move on the board, until a node which still has moves to
+     * expand or which ends the game.
+     */
+    private int select() {
+        int node = 0;
+        while (result[node] == 0 && untried[node] < 0 && firstChild[node] != 0) {
+            node = bestChild(node);
+            cells[cell[node]] = mover[node];
+        }
+
+        return node;
+    }
+
+    /**
+     * @return The child with the highest upper confidence bound.
+     */
+    private int bestChild(int node) {
+        double logVisits = Math.log(visits[node]);
+        double bestValue = Double.NEGATIVE_INFINITY;
+        int best = firstChild[node];
+
+        for (int child = firstChild[node]; child != 0; child = nextSibling[child]) {
+            double value = score[child] / (2.0 * visits[child]) + EXPLORATION * Math.sqrt(logVisits / visits[child]);
+            if (value > bestValue) {
+                bestValue = value;
+                best = child;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Adds the next untried move of a node as its child and plays it on the board.
+     *
+     * @return The new child, or the node itself if it has no moves left to try.
+     */
+    private int expand(int node) {
+        boolean nearOnly = rules.getSize() > 5 && hasMarks();
+        for (int i = untried[node]; i >= 0 && i < moveOrder.length; i++) {
+            int move = moveOrder[i];
+            if (cells[move] != 0 || (nearOnly && !rules.hasNeighbour(cells, move))) continue;
+
+            untried[node] = i + 1;
+            byte player = (byte) (3 - mover[node]);
+            cells[move] = player;
+            byte ended = rules.isWin(cells, move) ? player : isFull() ? DRAW : 0;
+            return newNode(node, move, player, ended);
+        }
+
+        untried[node] = -1;
+        return node;
+    }
+
+    /**
+     * Plays random moves until the game ends.
+     *
+     * @param player The player to move.
+     * @return The winner or DRAW.
+     */
+    private byte playout(byte player) {
+        int count = 0;
+        for (int i = 0; i < cells.length; i++) if (cells[i] == 0) empties[count++] = i;
+
+        RandomSource random = RandomSource.current();
+        while (count > 0) {
+            int index = random.nextInt(count);
+            int move = empties[index];
+            empties[index] = empties[--count];
+
+            cells[move] = player;
+            if (rules.isWin(cells, move)) return player;
+            player = (byte) (3 - player);
+        }
+
+        return DRAW;
+    }
+
+    private void backPropagate(int node, byte winner) {
+        for (; node >= 0; node = parent[node]) {
+            visits[node]++;
+            if (winner == mover[node]) score[node] += 2;
+            else if (winner == DRAW) score[node]++;
+        }
+    }
+
+    private int newNode(int parentNode, int move, byte player, byte ended) {
+        int node = nodes++;
+        parent[node] = parentNode;
+        firstChild[node] = 0;
+        cell[node] = move;
+        mover[node] = player;
+        result[node] = ended;
+        untried[node] = 0;
+        visits[node] = 0;
+        score[node] = 0;
+
+        if (parentNode >= 0) { // Children are pushed to the front of the list of their parent.
+            nextSibling[node] = firstChild[parentNode];
+            firstChild[parentNode] = node;
+        } else nextSibling[node] = 0;
+
+        return node;
+    }
+
+    private boolean hasMarks() {
+        for (byte mark : cells) if (mark != 0) return true;
+        return false;
+    }
+
+    private boolean isFull() {
+        for (byte mark : cells) if (mark == 0) return false;
+        return true;
+    }
+
+    public int getCellID() {
+        return cellID;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2019 Akshit Sinha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wimi.tictactoe.client.game.algo;
+
+import com.wimi.tictactoe.util.Console;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * @Description Perfect play moves of every 3x3 position, generated at build time by {@link OpeningBookGenerator}.
+ */
+final class OpeningBook {
+
+    static final String RESOURCE = "/assets/OpeningBook.bin";
+    static final int MAGIC = 0x4E434F42; // "NCOB"
+
+    private static final OpeningBook instance = load();
+
+    private final short[] codes; // Sorted canonical codes.
+    private final byte[] cells; // Best canonical cell of each code.
+
+    private OpeningBook(short[] codes, byte[] cells) {
+        this.codes = codes;
+        this.cells = cells;
+    }
+
+    /**
+     * Looks up the best move of a position.
+     *
+     * @param mine   Cells occupied by the player to move.
+     * @param theirs Cells occupied by the other player.
+     * @return The best cell or -1 if the book is not available or does not contain the position.
+     */
+    static int lookup(int mine, int theirs) {
+        if (instance == null) return -1;
+
+        int key = Board.canonical(mine, theirs);
+        int index = Arrays.binarySearch(instance.codes, (short) (key >>> 3));
+        if (index < 0) return -1;
+
+        int cell = Board.fromCanonicalCell(key, instance.cells[index]);
+        return ((mine | theirs) & 1 << cell) == 0 ? cell : -1;
+    }
+
+    private static OpeningBook load() {
+        InputStream resource = OpeningBook.class.getResourceAsStream(RESOURCE);
+        if (resource == null) {
+            Console.warn("Opening book not found, the computer will search every move.");
+            return null;
+        }
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(resource))) {
+            if (input.readInt() != MAGIC) throw new IOException("Not an opening book.");
+
+            int size = input.readUnsignedShort();
+            short[] codes = new short[size];
+            byte[] cells = new byte[size];
+            for (int i = 0; i < size; i++) {
+                codes[i] = input.readShort();
+                cells[i] = input.readByte();
+            }
+
+            Console.log("Loaded the opening book with " + size + " positions.");
+            return new OpeningBook(codes, cells);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2019 Akshit Sinha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wimi.tictactoe.client.game.algo;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * @Description Generates the opening book during the build.
+ * <p>
+ * Every legal position is enumerated and solved with perfect play. The best move of each position where a move
+ * can still be made is written to a binary file which is packed into the jar and read by {@link OpeningBook}.
+ * Run by the exec-maven-plugin in the process-classes phase.
+ * </p>
+ */
+public class OpeningBookGenerator {
+
+    private static final int UNSOLVED = Integer.MIN_VALUE;
+
+    private final int[] scores = new int[19683]; // Solved score of each canonical position.
+    private final Map<Integer, Integer> bestMoves = new TreeMap<>(); // Canonical code to best canonical cell.
+    private int legalPositions;
+
+    private OpeningBookGenerator() {
+        Arrays.fill(scores, UNSOLVED);
+    }
+
+    /**
+     * @param args The path of the opening book file to write.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) throw new IllegalArgumentException("Usage: OpeningBookGenerator <output file>");
+
+        OpeningBookGenerator generator = new OpeningBookGenerator();
+        generator.enumerate(0, 0, new boolean[1 << 2 * Board.CELLS]);
+        generator.write(new File(args[0]));
+    }
+
+    /**
+     * Visits every position which can be reached from the empty board, from the perspective of the player to move.
+     *
+     * @param visited Positions already visited, indexed by the cells of the player who started the game
+     *                followed by the cells of the other player.
+     */
+    private void enumerate(int mine, int theirs, boolean[] visited) {
+        boolean started = Integer.bitCount(mine) == Integer.bitCount(theirs); // The player to move started the game.
+        int index = started ? mine << Board.CELLS | theirs : theirs << Board.CELLS | mine;
+        if (visited[index]) return;
+
+        visited[index] = true;
+        legalPositions++;
+
+        int empty = ~(mine | theirs) & Board.FULL;
+        if (Board.isWin(theirs) || empty == 0) return;
+
+        int key = Board.canonical(mine, theirs);
+        int bestCell = -1;
+        int bestScore = Integer.MIN_VALUE;
+        for (int cell : Minimax.MOVE_ORDER) {
+            if ((empty & 1 << cell) == 0) continue;
+
+            int score = -solve(theirs, mine | 1 << cell);
+            if (score > bestScore) {
+                bestScore = score;
+                bestCell = cell;
+            }
+        }
+
+        if (!bestMoves.containsKey(key >>> 3)) bestMoves.put(key >>> 3, Board.toCanonicalCell(key, bestCell));
+
+        for (int free = empty; free != 0; free &= free - 1) enumerate(theirs, mine | (free & -free), visited);
+    }
+
+    /**
+     * Solves a position with a plain negamax search. Scored the same way as {@link Minimax}.
+     *
+     * @return Score from the perspective of the player to move.
+     */
+    private int solve(int mine, int theirs) {
+        int empty = ~(mine | theirs) & Board.FULL;
+        if (Board.isWin(theirs)) return -10 - Integer.bitCount(empty);
+        else if (empty == 0) return 0;
+
+        int code = Board.canonical(mine, theirs) >>> 3;
+        if (scores[code] != UNSOLVED) return scores[code];
+
+        int best = Integer.MIN_VALUE;
+        for (int free = empty; free != 0; free &= free - 1) best = Math.max(best, -solve(theirs, mine | (free & -free)));
+
+        return scores[code] = best;
+    }
+
+    /**
+     * Writes the opening book. A header with the magic number and the number of entries,
+     * followed by 3 bytes per entry sorted by canonical code: the code as a short and the best cell as a byte.
+     */
+    private void write(File file) throws IOException {
+        File directory = file.getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs())
+            throw new IOException("Could not create " + directory);
+
+        try (DataOutputStream output = new DataOutputStream(new FileOutputStream(file))) {
+            output.writeInt(OpeningBook.MAGIC);
+            output.writeShort(bestMoves.size());
+
+            for (Map.Entry<Integer, Integer> entry : bestMoves.entrySet()) {
+                output.writeShort(entry.getKey());
+                output.writeByte(entry.getValue());
+            }
+        }
+
+        System.out.println("Wrote " + bestMoves.size() + " canonical positions out of " + legalPositions
+                + " legal positions to " + file.getPath() + " (" + file.length() + " bytes).");
+    }
+}
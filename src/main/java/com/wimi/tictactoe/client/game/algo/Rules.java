@@ -0,0 +1,221 @@
+/*
+ * Copyright 2019 Akshit Sinha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wimi.tictactoe.client.game.algo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * @Description Rules of a game played on a square board of any size where a player wins by
+ * getting a number of marks in a row, column or diagonal.
+ * <p>
+ * Cells are numbered row by row from 0 to {@code size * size - 1}. The classic game is a 3x3 board with 3 in a row.
+ * </p>
+ */
+public final class Rules {
+
+    private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}}; // Row, column, diagonal and anti-diagonal.
+
+    public static final Rules CLASSIC = new Rules(3, 3); // Declared after the directions it is built with.
+
+    private final int size;
+    private final int winLength;
+    private final int[] moveOrder;
+    private final int[][] lines;
+
+    /**
+     * @param size      Number of rows and columns of the board.
+     * @param winLength Number of marks in a line needed to win.
+     */
+    public Rules(int size, int winLength) {
+        if (size < 3 || size > 15) throw new IllegalArgumentException("Unsupported board size: " + size);
+        if (winLength < 3 || winLength > size) throw new IllegalArgumentException("Unsupported win length: " + winLength);
+
+        this.size = size;
+        this.winLength = winLength;
+
+        // Cells closer to the center take part in more lines, so they are searched first.
+        Integer[] cells = new Integer[size * size];
+        for (int i = 0; i < cells.length; i++) cells[i] = i;
+        double center = (size - 1) / 2.0;
+        Arrays.sort(cells, Comparator.comparingDouble(cell -> Math.hypot(cell / size - center, cell % size - center)));
+
+        moveOrder = new int[cells.length];
+        for (int i = 0; i < cells.length; i++) moveOrder[i] = cells[i];
+
+        // Every run of winLength cells in a row, column or diagonal.
+        List<int[]> runs = new ArrayList<>();
+        for (int cell = 0; cell < size * size; cell++) {
+            for (int[] direction : DIRECTIONS) {
+                int lastRow = cell / size + (winLength - 1) * direction[0];
+                int lastColumn = cell % size + (winLength - 1) * direction[1];
+                if (lastRow >= size || lastColumn < 0 || lastColumn >= size) continue;
+
+                int[] run = new int[winLength];
+                for (int i = 0; i < winLength; i++) run[i] = cell + i * (direction[0] * size + direction[1]);
+                runs.add(run);
+            }
+        }
+        lines = runs.toArray(new int[0][]);
+    }
+
+    /**
+     * Checks if the mark at a cell completes a line. Only the lines through that cell are examined,
+     * which is enough when it is checked after every move.
+     *
+     * @param cells The board, 0 for an empty cell or the ordinal of the state of the player.
+     * @param cell  The cell at which the last move was made.
+     */
+    public boolean isWin(byte[] cells, int cell) {
+        return getLineStart(cells, cell) >= 0;
+    }
+
+    /**
+     * Gets the cells of the line completed by the mark at a cell.
+     *
+     * @param cells The board, 0 for an empty cell or the ordinal of the state of the player.
+     * @param cell  The cell at which the last move was made.
+     * @param line  Filled with the first {@code winLength} cells of the line.
+     * @return True if the mark completes a line.
+     */
+    public boolean getWinningLine(byte[] cells, int cell, int[] line) {
+        int start = getLineStart(cells, cell);
+        if (start < 0) return false;
+
+        int[] direction = DIRECTIONS[start & 3];
+        int row = (start >> 2) / size;
+        int column = (start >> 2) % size;
+        for (int i = 0; i < winLength; i++) line[i] = (row + i * direction[0]) * size + column + i * direction[1];
+
+        return true;
+    }
+
+    /**
+     * Scans the whole board for a completed line. Used when the last move is not known.
+     *
+     * @param cells The board, 0 for an empty cell or the ordinal of the state of the player.
+     * @param line  Filled with the first {@code winLength} cells of the line.
+     * @return True if there is a completed line.
+     */
+    public boolean findWinningLine(byte[] cells, int[] line) {
+        for (int cell = 0; cell < cells.length; cell++) if (getWinningLine(cells, cell, line)) return true;
+        return false;
+    }
+
+    /**
+     * @return The first cell of the winning line through the cell shifted left by 2 with the direction
+     * of the line in the lowest 2 bits, or -1 if there is no such line.
+     */
+    private int getLineStart(byte[] cells, int cell) {
+        byte player = cells[cell];
+        if (player == 0) return -1;
+
+        int row = cell / size;
+        int column = cell % size;
+        for (int d = 0; d < DIRECTIONS.length; d++) {
+            int dRow = DIRECTIONS[d][0];
+            int dColumn = DIRECTIONS[d][1];
+
+            int backward = count(cells, player, row, column, -dRow, -dColumn);
+            int forward = count(cells, player, row, column, dRow, dColumn);
+            if (backward + 1 + forward >= winLength)
+                return ((row - backward * dRow) * size + column - backward * dColumn) << 2 | d;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Counts the marks of a player next to a cell in one direction.
+     */
+    private int count(byte[] cells, byte player, int row, int column, int dRow, int dColumn) {
+        int count = 0;
+        for (int r = row + dRow, c = column + dColumn; r >= 0 && r < size && c >= 0 && c < size && count < winLength; r += dRow, c += dColumn) {
+            if (cells[r * size + c] != player) break;
+            count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * @return True if any of the 8 cells around the cell has a mark on it.
+     */
+    boolean hasNeighbour(byte[] cells, int cell) {
+        int row = cell / size;
+        int column = cell % size;
+        for (int r = Math.max(0, row - 1); r <= Math.min(size - 1, row + 1); r++)
+            for (int c = Math.max(0, column - 1); c <= Math.min(size - 1, column + 1); c++)
+                if (cells[r * size + c] != 0) return true;
+
+        return false;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getWinLength() {
+        return winLength;
+    }
+
+    /**
+     * @return Total number of cells on the board.
+     */
+    public int getCells() {
+        return size * size;
+    }
+
+    /**
+     * @return Every cell ordered from the center of the board to its edges.
+     */
+    int[] getMoveOrder() {
+        return moveOrder;
+    }
+
+    /**
+     * @return Every run of cells which wins the game when a player has a mark on all of them.
+     */
+    int[][] getLines() {
+        return lines;
+    }
+
+    public boolean isClassic() {
+        return size == 3 && winLength == 3;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) return true;
+        if (!(object instanceof Rules)) return false;
+
+        Rules rules = (Rules) object;
+        return size == rules.size && winLength == rules.winLength;
+    }
+
+    @Override
+    public int hashCode() {
+        return size * 31 + winLength;
+    }
+
+    @Override
+    public String toString() {
+        return size + "x" + size + " with " + winLength + " in a row";
+    }
+}
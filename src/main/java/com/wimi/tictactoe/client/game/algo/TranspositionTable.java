@@ -0,0 +1,84 @@
+/*
+ * Copyright 2019 Akshit Sinha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wimi.tictactoe.client.game.algo;
+
+/**
+ * @Description Remembers the result of every searched position.
+ * <p>
+ * Entries are indexed by the canonical key of {@link Board#canonical(int, int)}, so every rotation and reflection
+ * of a position shares one entry. Each entry is packed in a single int: the score, the kind of bound the score is
+ * and the best move in canonical cells.
+ * </p>
+ */
+final class TranspositionTable {
+
+    static final int EMPTY = 0; // Position not searched yet.
+    static final int EXACT = 1; // Score is the exact minimax value.
+    static final int LOWER = 2; // Score is a lower bound, the search was cut off.
+    static final int UPPER = 3; // Score is an upper bound, no move reached alpha.
+
+    private static final int SIZE = 19683; // 3^9 positions.
+    private static final int NO_MOVE = 15;
+
+    private final int[] entries = new int[SIZE];
+
+    /**
+     * @param key Key returned by {@link Board#canonical(int, int)}.
+     * @return The packed entry or {@link #EMPTY}.
+     */
+    int get(int key) {
+        return entries[key >>> 3];
+    }
+
+    /**
+     * Stores the result of a search.
+     *
+     * @param key   Key returned by {@link Board#canonical(int, int)}.
+     * @param flag  {@link #EXACT}, {@link #LOWER} or {@link #UPPER}.
+     * @param score Score from the perspective of the player to move.
+     * @param cell  Best cell of the original position or -1.
+     */
+    void put(int key, int flag, int score, int cell) {
+        int move = cell < 0 ? NO_MOVE : Board.toCanonicalCell(key, cell);
+        entries[key >>> 3] = (score + 128) | flag << 8 | move << 10;
+    }
+
+    static int flag(int entry) {
+        return entry >>> 8 & 3;
+    }
+
+    static int score(int entry) {
+        return (entry & 0xFF) - 128;
+    }
+
+    /**
+     * @param key   Key which the entry was fetched with.
+     * @param entry The packed entry.
+     * @return Best cell of the original position or -1.
+     */
+    static int cell(int key, int entry) {
+        int move = entry >>> 10 & 15;
+        return move == NO_MOVE ? -1 : Board.fromCanonicalCell(key, move);
+    }
+
+    /**
+     * Forgets every searched position.
+     */
+    void clear() {
+        java.util.Arrays.fill(entries, EMPTY);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2019 Akshit Sinha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wimi.tictactoe.client.game.mechanics;
+
+import com.wimi.tictactoe.client.game.Structure;
+import com.wimi.tictactoe.client.game.algo.Grid;
+import com.wimi.tictactoe.client.game.algo.InterMove;
+import com.wimi.tictactoe.client.game.algo.Minimax;
+import com.wimi.tictactoe.client.game.algo.MonteCarlo;
+import com.wimi.tictactoe.util.Console;
+import com.wimi.tictactoe.util.Histogram;
+import com.wimi.tictactoe.util.Levels;
+import com.wimi.tictactoe.util.LogLevel;
+import com.wimi.tictactoe.util.Metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @Description Makes the moves of the computer away from the JavaFX application thread.
+ */
+class AIEngine extends Structure {
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Computer AI");
+        thread.setDaemon(true); // Must not keep the application alive.
+        return thread;
+    });
+
+    private static final Map<Levels, Histogram> TIMERS = new EnumMap<>(Levels.class); // Time of each move, by difficulty.
+
+    static {
+        for (Levels level : Levels.values()) TIMERS.put(level, Metrics.timer("ai.move." + level.name().toLowerCase()));
+    }
+
+    /**
+     * Starts searching for the move of the computer on the AI thread.
+     *
+     * @param grid         A copy of the board of the current game.
+     * @param move         The move to be made by the computer.
+     * @param level        The difficulty the computer is playing at.
+     * @param budgetMillis Time the computer may think on boards larger than the classic one.
+     * @param playouts     Random games the computer plays per move in MONTE_CARLO difficulty.
+     * @return The cell to make a move at. Cancelling it stops the search and discards the result.
+     */
+    CompletableFuture<Integer> requestMove(Grid grid, States move, Levels level, long budgetMillis, int playouts) {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        CompletableFuture<Integer> future = CompletableFuture.supplyAsync(
+                () -> getMove(grid, move, level, budgetMillis, playouts, cancelled), executor);
+        future.whenComplete((cell, throwable) -> {
+            if (future.isCancelled()) cancelled.set(true); // The next move must not wait for this search to run out.
+        });
+
+        return future;
+    }
+
+    /**
+     * Makes the move of the computer on the calling thread.
+     */
+    int getMove(Grid grid, States move, Levels level, long budgetMillis, int playouts) {
+        return getMove(grid, move, level, budgetMillis, playouts, new AtomicBoolean());
+    }
+
+    /**
+     * Makes the move of the computer on the calling thread.
+     *
+     * @param cancelled Set to stop the search early, the move returned is then not worth making.
+     */
+    private int getMove(Grid grid, States move, Levels level, long budgetMillis, int playouts, AtomicBoolean cancelled) {
+        long start = System.nanoTime();
+        int cell = searchMove(grid, move, level, budgetMillis, playouts, cancelled);
+        TIMERS.get(level).recordSince(start);
+
+        return cell;
+    }
+
+    private int searchMove(Grid grid, States move, Levels level, long budgetMillis, int playouts, AtomicBoolean cancelled) {
+        switch (level) {
+            case EASY:
+                int cell = getAnyAvailSpot(grid);
+                if (Console.isEnabled(LogLevel.DEBUG))
+                    Console.log(LogLevel.DEBUG, "Computer is making a move", "cell", cell);
+                return cell;
+            case INTERMEDIATE:
+                return new InterMove(grid, move, budgetMillis, cancelled).getCellID();
+            case MONTE_CARLO:
+                return new MonteCarlo(grid, move, playouts, cancelled).getCellID();
+            case IMPOSSIBLE:
+                return new Minimax(grid, move, budgetMillis, cancelled).getCellID();
+            default:
+                throw new IllegalStateException("Unknown difficulty level!");
+        }
+    }
+}
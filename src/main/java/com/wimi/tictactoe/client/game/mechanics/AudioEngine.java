@@ -16,51 +16,135 @@
 
 package com.wimi.tictactoe.client.game.mechanics;
 
+import com.wimi.tictactoe.util.Console;
+
 import javax.sound.sampled.*;
 import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * @Description Plays the sounds of the game.
+ * <p>
+ * Each sound is decoded once and kept in a few open clips which are played again from the start,
+ * so a click neither reads the sound file nor opens an audio line. Sounds are played on one audio thread.
+ * </p>
  */
 public class AudioEngine {
 
-    public static synchronized void playClickSound() {
-        new Thread(() -> {
-            try {
-                Clip clip = AudioSystem.getClip();
-                InputStream multimediaAudioStream = AudioEngine.class.getResourceAsStream("/assets/sounds/MultimediaClick.wav");
-                InputStream bufferedMultimediaStream = new BufferedInputStream(multimediaAudioStream);
-                AudioInputStream inputStream = AudioSystem.getAudioInputStream(bufferedMultimediaStream);
-                clip.open(inputStream);
-                clip.start();
-
-                multimediaAudioStream.close();
-                bufferedMultimediaStream.close();
-                inputStream.close();
-            } catch (LineUnavailableException | IOException | UnsupportedAudioFileException e) {
-                e.printStackTrace();
-            }
-        }).start();
+    private static final int CLIPS_PER_SOUND = 3; // Clicks in quick succession overlap up to this many times.
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Audio");
+        thread.setDaemon(true); // Must not keep the application alive.
+        return thread;
+    });
+
+    private static final Map<Sound, Clip[]> clips = new EnumMap<>(Sound.class); // Only used on the audio thread.
+    private static final Map<Sound, Integer> nextClip = new EnumMap<>(Sound.class); // Only used on the audio thread.
+    private static boolean unavailable = false; // No audio line could be opened. Only used on the audio thread.
+
+    /**
+     * Decodes the sounds on the audio thread, so that the first click is as quick as the others.
+     */
+    public static void preload() {
+        executor.execute(() -> {
+            for (Sound sound : Sound.values()) getClips(sound);
+        });
+    }
+
+    public static void playClickSound() {
+        play(Sound.CLICK);
     }
 
-    public static synchronized void playGlassClickSound() {
-        new Thread(() -> {
-            try {
-                Clip clip = AudioSystem.getClip();
-                InputStream multimediaAudioStream = AudioEngine.class.getResourceAsStream("/assets/sounds/GlassClick.wav");
-                InputStream bufferedMultimediaStream = new BufferedInputStream(multimediaAudioStream);
-                AudioInputStream inputStream = AudioSystem.getAudioInputStream(bufferedMultimediaStream);
-                clip.open(inputStream);
-                clip.start();
-
-                multimediaAudioStream.close();
-                bufferedMultimediaStream.close();
-                inputStream.close();
-            } catch (LineUnavailableException | IOException | UnsupportedAudioFileException e) {
-                e.printStackTrace();
+    public static void playGlassClickSound() {
+        play(Sound.GLASS_CLICK);
+    }
+
+    private static void play(Sound sound) {
+        executor.execute(() -> {
+            Clip[] pool = getClips(sound);
+            if (pool == null) return;
+
+            int next = nextClip.getOrDefault(sound, 0);
+            nextClip.put(sound, (next + 1) % pool.length);
+
+            Clip clip = pool[next]; // The clip played the longest time ago.
+            clip.stop();
+            clip.setFramePosition(0);
+            clip.start();
+        });
+    }
+
+    /**
+     * @return The open clips of a sound, opened the first time. Null if sounds cannot be played.
+     */
+    private static Clip[] getClips(Sound sound) {
+        if (unavailable) return null;
+
+        Clip[] pool = clips.get(sound);
+        if (pool != null) return pool;
+
+        try (AudioInputStream stream = decode(sound.getPath())) {
+            AudioFormat format = stream.getFormat();
+            byte[] data = readAll(stream);
+
+            pool = new Clip[CLIPS_PER_SOUND];
+            for (int i = 0; i < pool.length; i++) {
+                pool[i] = AudioSystem.getClip();
+                pool[i].open(format, data, 0, data.length);
             }
-        }).start();
+
+            clips.put(sound, pool);
+            return pool;
+        } catch (LineUnavailableException | IOException | UnsupportedAudioFileException | IllegalArgumentException e) {
+            Console.warn("Sounds cannot be played: " + e.getMessage());
+            unavailable = true;
+            return null;
+        }
+    }
+
+    /**
+     * Opens a sound of the classpath as PCM, which is what a clip plays.
+     */
+    private static AudioInputStream decode(String path) throws IOException, UnsupportedAudioFileException {
+        InputStream resource = AudioEngine.class.getResourceAsStream(path);
+        if (resource == null) throw new IOException("Missing sound " + path);
+
+        AudioInputStream stream = AudioSystem.getAudioInputStream(new BufferedInputStream(resource));
+        AudioFormat format = stream.getFormat();
+        if (format.getEncoding() == AudioFormat.Encoding.PCM_SIGNED || format.getEncoding() == AudioFormat.Encoding.PCM_UNSIGNED)
+            return stream;
+
+        AudioFormat pcm = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, format.getSampleRate(), 16, format.getChannels(),
+                format.getChannels() * 2, format.getSampleRate(), false);
+        return AudioSystem.getAudioInputStream(pcm, stream);
+    }
+
+    private static byte[] readAll(InputStream stream) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int read; (read = stream.read(buffer)) > 0; ) bytes.write(buffer, 0, read);
+        return bytes.toByteArray();
+    }
+
+    private enum Sound {
+        CLICK("/assets/sounds/MultimediaClick.wav"),
+        GLASS_CLICK("/assets/sounds/GlassClick.wav");
+
+        private final String path;
+
+        Sound(String path) {
+            this.path = path;
+        }
+
+        String getPath() {
+            return path;
+        }
     }
 }
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2019 Akshit Sinha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wimi.tictactoe.client.game.mechanics;
+
+import com.wimi.tictactoe.client.game.Game;
+import javafx.animation.AnimationTimer;
+
+/**
+ * @Description Runs the clocks of a game on the JavaFX application thread.
+ * <p>
+ * It is called on every pulse of JavaFX with a timestamp of {@link System#nanoTime()}, so no thread is created for it
+ * and the time of a move is measured rather than counted in steps which drift. The clock keeps running from move to
+ * move, the game resets the time of the move itself.
+ * </p>
+ */
+class GameClock extends AnimationTimer {
+
+    private final Game game;
+    private final Runnable onTick;
+    private final Runnable onTimeUp;
+    private long last = 0; // Timestamp of the previous pulse, 0 until the clock is running.
+
+    /**
+     * @param game     The game to advance the clocks of.
+     * @param onTick   Called after the clocks are advanced, to show them.
+     * @param onTimeUp Called once when the player to move runs out of time in Timed mode.
+     */
+    GameClock(Game game, Runnable onTick, Runnable onTimeUp) {
+        this.game = game;
+        this.onTick = onTick;
+        this.onTimeUp = onTimeUp;
+    }
+
+    @Override
+    public void start() {
+        last = 0; // Time while the clock was stopped is not counted.
+        super.start();
+    }
+
+    @Override
+    public void handle(long now) {
+        if (last != 0 && game.tick((now - last) / 1e9)) {
+            stop();
+            onTimeUp.run();
+            return;
+        }
+
+        last = now;
+        onTick.run();
+        if (game.isFinished()) stop();
+    }
+}
@@ -20,9 +20,12 @@ import com.wimi.tictactoe.App;
 import com.wimi.tictactoe.builders.ButtonBuilder;
 import com.wimi.tictactoe.builders.TextBuilder;
 import com.wimi.tictactoe.client.NoughtsAndCrosses;
+import com.wimi.tictactoe.client.game.Game;
 import com.wimi.tictactoe.client.game.Structure;
-import com.wimi.tictactoe.client.game.algo.InterMove;
-import com.wimi.tictactoe.client.game.algo.Minimax;
+import com.wimi.tictactoe.client.game.algo.Rules;
+import com.wimi.tictactoe.client.game.writers.AutoSaver;
+import com.wimi.tictactoe.client.game.writers.GameFile;
+import com.wimi.tictactoe.client.game.writers.MoveJournal;
 import com.wimi.tictactoe.gui.Dashboard;
 import com.wimi.tictactoe.util.Console;
 import com.wimi.tictactoe.util.Levels;
@@ -42,16 +45,15 @@ import javafx.scene.text.FontWeight;
 import javafx.scene.text.Text;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
 
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * @Description The main class where the Noughts and Crosses mechanics takes place.
@@ -73,139 +75,131 @@ public class GameEngine extends Structure {
             .setFont(Font.font("Segoe UI", FontPosture.REGULAR, 42))
             .setColor(Color.GREENYELLOW)
             .build();
-    private final Button[] gameNodes = new Button[9];
+    private Button[] gameNodes = new Button[0];
     private final GridPane gameGrid = new GridPane();
+    private final AIEngine aiEngine = new AIEngine();
     private Dashboard dashboard;
     private Levels difficultyLevel;
+    private Game game = new Game(Rules.CLASSIC, States.NONE, false, 0); // The board, moves, clocks and result rendered by this screen.
     private File theFile;
-    private ScheduledExecutorService timerExecutor = Executors.newSingleThreadScheduledExecutor(); // Timer which CAN reset anytime.
+    private AutoSaver autoSaver;
+    private GameClock clock; // Runs the clocks of the game while it is played.
+    private long shownElapsedTime = -1; // The total time played which is shown.
     private JSONObject jsonObject = new JSONObject(); // Primary JSON object.
-    private JSONArray jsonArrayX = new JSONArray(); // Contains the time taken for each move by X.
-    private JSONArray jsonArrayO = new JSONArray(); // Contains the time taken for each move by O.
-    private boolean finished = false; // Is the game finished or not.
-    private boolean timed = false; // Is the game in Timed mode or not.
-    private double timeForMove = 0; // Time taken to do each move is temporarily saved to this variable.
-    private long maxTimeAllowed = 0; // Max time allowed when the game is in timed mode.
-    private long timePlayed = 0; // Time played since game start.
-    private int movesX = 0; // Total moves made of X
-    private int movesO = 0; // Total moves made of O
-    private States move = States.NONE; // The current move.
-    private States winner = States.NONE; // The winner of the game.
-    private Runnable timerRunnable = () -> {
-        if (finished) timerExecutor.shutdown();
-        else {
-            if (timed && getTotalMoves(gameNodes) > 0) {
-                timeLeft.setText(String.valueOf(round(maxTimeAllowed - timeForMove)));
-                if (timeForMove >= maxTimeAllowed) {
-                    timeLeft.setText("Switching scenes..");
-                    disableButtons(gameNodes);
-                    winner = getConjugateMove(move); // The other player is the winner as the opponent couldn't make a move in time.
-                    Platform.runLater(this::win); // Run on JavaFX thread.
-                    Console.log("Time is up for " + move + " to make a move. Hence " + getConjugateMove(move).toString() + " is the winner.");
-                    timerExecutor.shutdown();
-                }
-            }
-
-            timeForMove += 0.1; // Increment time taken for current move.
-        }
-    };
-
+    private CompletableFuture<Integer> pendingMove; // The move the computer is still searching for.
     public GameEngine(File file) {
         Console.log("Started the game " + file.getName());
         this.theFile = file;
+        this.autoSaver = new AutoSaver(file);
 
-        ScheduledExecutorService elapsedExecutor = Executors.newSingleThreadScheduledExecutor();
-        Runnable elapsedRunnable = () -> {
-            if (finished) elapsedExecutor.shutdown();
-            else {
-                timeElapsed.setText(String.format("%02d:%02d:%02d", timePlayed / 3600, (timePlayed % 3600) / 60, timePlayed % 60));
-                // Integer formatted as:            HH : MM : SS
-
-                timePlayed++; // Increment total time played.
-            }
-        };
-
-        try (FileReader reader = new FileReader(file)) {
+        try {
             Console.log("Reading the game file...");
-            jsonObject = (JSONObject) new JSONParser().parse(reader);
-            reader.close();
+            jsonObject = GameFile.read(file);
+
+            Rules rules = getRules(jsonObject);
+            Console.log("The game is played on a " + rules + ".");
 
             if (jsonObject.containsKey("state") && jsonObject.get("state").equals(true) && jsonObject.containsKey("winner")) {
                 // Game already finished state.
-                winner = getMoveID(jsonObject.get("winner").toString());
+                game = new Game(rules, States.NONE, false, 0);
+                game.finish(getMoveID(jsonObject.get("winner").toString()));
                 Console.log("The game is already finished. The game will be switched to the Dashboard.");
 
                 this.dashboard = new Dashboard(file);
-                finished = true;
             } else if (jsonObject.containsKey("nodes") && jsonObject.containsKey("ElapsedTime") && jsonObject.containsKey("mode") && jsonObject.containsKey("opponent")) {
                 // Resume game state.
                 Console.log("Elements necessary to resume the game are found.");
+                boolean timed = jsonObject.get("mode").equals("timed");
+                long maxTimeAllowed = NoughtsAndCrosses.getWriter().getSettings().getMaxTime();
+                game = new Game(rules, States.NONE, timed, maxTimeAllowed);
+
                 setupMatrix();
                 setGameProgress((JSONArray) jsonObject.get("nodes"));
+                restoreTimes(States.X, (JSONArray) jsonObject.get("timeX"));
+                restoreTimes(States.O, (JSONArray) jsonObject.get("timeO"));
 
-                timeForMove = (double) jsonObject.get("LastMoveTime");
+                double timeForMove = (double) jsonObject.get("LastMoveTime");
+                long timePlayed = (long) jsonObject.get("ElapsedTime");
+                game.restoreClocks(timePlayed, timeForMove);
                 Console.log("Last move already took " + timeForMove + " seconds.");
+                Console.log("Previous time played was " + timePlayed + " seconds.");
 
-                timed = jsonObject.get("mode").equals("timed");
-                maxTimeAllowed = (long) NoughtsAndCrosses.getWriter().getJsonKey("maxTime");
+                if (jsonObject.containsKey("move")) {
+                    game.restoreMove(getMoveID(jsonObject.get("move").toString()));
+                    Console.log("The last move was " + getConjugateMove(game.getMove()));
+                } else {
+                    game.restoreMove(getCurrentMove());
+                    Console.log("Set " + game.getMove() + " as the next move.");
+                }
+
+                if (replayJournal(autoSaver.readJournal()) > 0) {
+                    timeForMove = 0; // The time of an unfinished move is not journaled.
+                    saveCurrentProgress(file); // Compacts the journal into the game file.
+                }
 
                 if (timed) Console.log("Max time allowed in this Timed game mode is " + maxTimeAllowed + " seconds.");
                 else Console.log("This game is being played in Unlimited Time mode.");
 
-                if (timed && timeForMove >= maxTimeAllowed) {
+                if (game.isFinished()) {
+                    Console.log("The game was finished by the moves of its journal. The game will be switched to the Dashboard.");
+                    this.dashboard = new Dashboard(file);
+                } else if (timed && timeForMove >= maxTimeAllowed) {
                     Console.log("Max time allowed is already reached. The game will be switched to the Dashboard.");
                     this.dashboard = new Dashboard(file);
-                    finished = true;
-                } else if (getTotalMoves(gameNodes) > 0) {
-                    elapsedExecutor.scheduleWithFixedDelay(elapsedRunnable, 0, 1, TimeUnit.SECONDS);
-                    timerExecutor.scheduleWithFixedDelay(timerRunnable, 0, 100, TimeUnit.MILLISECONDS);
-                }
+                    game.timeOut(); // The player to move lost while the game was closed.
+                } else if (game.getTotalMoves() > 0) startClock();
 
                 Console.log("The opponent is " + jsonObject.get("opponent").toString());
                 if (jsonObject.get("opponent").equals("computer")) {
                     difficultyLevel = NoughtsAndCrosses.getWriter().getDifficulty();
                     Console.log("User playing at " + difficultyLevel + " difficulty against computer.");
-                    Console.log("Computer is making moves as " + getConjugateMove(getMoveID(jsonObject.get("move").toString())));
+                    if (isComputerToMove())
+                        Console.log("Computer is making moves as " + getMoveID(jsonObject.get("move").toString()));
+                    else
+                        Console.log("Computer is making moves as " + getConjugateMove(getMoveID(jsonObject.get("move").toString())));
                 }
 
-                jsonArrayX = (JSONArray) jsonObject.get("timeX");
-                jsonArrayO = (JSONArray) jsonObject.get("timeO");
-
-                timePlayed = (long) jsonObject.get("ElapsedTime");
-                Console.log("Previous time played was " + timePlayed + " seconds.");
-
-                if (jsonObject.containsKey("move")) {
-                    move = getMoveID(jsonObject.get("move").toString());
-                    Console.log("The last move was " + getConjugateMove(move));
-                } else {
-                    move = getCurrentMove(movesX, movesO);
-                    Console.log("Set " + move + " as the next move.");
+                if (difficultyLevel != null && !game.isFinished() && isComputerToMove()) {
+                    Console.log("The game was saved while the computer was making a move.");
+                    requestComputerMove();
                 }
             } else if (jsonObject.containsKey("mode") && jsonObject.containsKey("opponent")) {
                 // Default game state.
                 Console.log("The current game is running for the first time.");
 
-                move = randomMoveGenerator(); // Starting move.
+                // Moves of a first session which ended before the game was saved.
+                List<MoveJournal.Move> journal = autoSaver.readJournal();
+                States move = !journal.isEmpty() && journal.get(0).getPly() == 0 ? journal.get(0).getPlayer()
+                        : randomMoveGenerator(); // Starting move.
                 Console.log("The starting move will be " + move.toString());
 
-                timed = jsonObject.get("mode").equals("timed");
+                boolean timed = jsonObject.get("mode").equals("timed");
                 Console.log("The timed setting of the game is " + timed);
 
-                setupMatrix();
-
+                long maxTimeAllowed = 0;
                 if (timed) {
-                    maxTimeAllowed = (long) NoughtsAndCrosses.getWriter().getJsonKey("maxTime");
+                    maxTimeAllowed = NoughtsAndCrosses.getWriter().getSettings().getMaxTime();
                     Console.log("Max time allowed in this game will be " + maxTimeAllowed + " seconds.");
                 } else Console.log("This game is being played in Unlimited Time mode.");
 
+                game = new Game(rules, move, timed, maxTimeAllowed);
+                setupMatrix();
+
                 Console.log("The opponent is " + jsonObject.get("opponent").toString());
                 if (jsonObject.get("opponent").equals("computer")) {
                     difficultyLevel = NoughtsAndCrosses.getWriter().getDifficulty();
                     Console.log("User playing at " + difficultyLevel + " difficulty against computer.");
                 }
 
-                elapsedExecutor.scheduleWithFixedDelay(elapsedRunnable, 1, 1, TimeUnit.SECONDS);
-                timerExecutor.scheduleWithFixedDelay(timerRunnable, 0, 100, TimeUnit.MILLISECONDS);
+                if (replayJournal(journal) > 0) saveCurrentProgress(file); // Compacts the journal into the game file.
+
+                if (game.isFinished()) {
+                    Console.log("The game was finished by the moves of its journal. The game will be switched to the Dashboard.");
+                    this.dashboard = new Dashboard(file);
+                } else {
+                    startClock();
+                    if (difficultyLevel != null && isComputerToMove()) requestComputerMove();
+                }
             } else Console.log("Files necessary to start a game are missing.");
         } catch (ParseException | IOException e) {
             e.printStackTrace();
@@ -214,16 +208,18 @@ public class GameEngine extends Structure {
         Button exitButton = new ButtonBuilder("Save and exit").setTextColor(Color.RED)
                 .setStyle("-jfx-button-type: RAISED; -fx-background-color: #760d84; -fx-text-fill: white;")
                 .onMouseClick(event -> {
-                    elapsedExecutor.shutdown();
-                    timerExecutor.shutdown();
+                    if (clock != null) clock.stop();
 
-                    if (getTotalMoves(gameNodes) > 0) saveCurrentProgress(file);
+                    if (game.getTotalMoves() > 0) saveCurrentProgress(file);
                     else {
                         Console.log("Deleting the game file as no moves are made.");
-                        if (file.delete()) Console.log("Deleted game file successfully.");
-                        else Console.log("Could not delete game file.");
+                        if (file.delete()) {
+                            NoughtsAndCrosses.getCatalog().remove(file);
+                            Console.log("Deleted game file successfully.");
+                        } else Console.log("Could not delete game file.");
                     }
 
+                    cancelComputerMove(); // After saving, so that the computer makes its move when the game is resumed.
                     App.getStage().setScene(App.getScene());
                 })
                 .setPrefWidth(200)
@@ -244,43 +240,109 @@ public class GameEngine extends Structure {
         StackPane.setAlignment(timeLeft, Pos.BOTTOM_RIGHT);
         root.getChildren().addAll(nextMove, timeElapsed, timeLeft);
 
-        nextMove.setText(move.toString().toUpperCase());
+        nextMove.setText(game.getMove().toString().toUpperCase());
         GraphicsEngine graphicsEngine = new GraphicsEngine();
         graphicsEngine.setRoot(root);
         NoughtsAndCrosses.setSceneBackground(root);
 
-        if (!finished)
+        if (!game.isFinished())
             App.getStage().setOnCloseRequest(event -> {
-                if (getTotalMoves(gameNodes) > 0) saveCurrentProgress(file);
-                else if (file.delete()) Console.log("Deleted game file as no moves were made.");
-                else Console.log("Could not delete game file.");
+                if (game.getTotalMoves() > 0) saveCurrentProgress(file);
+                else if (file.delete()) {
+                    NoughtsAndCrosses.getCatalog().remove(file);
+                    Console.log("Deleted game file as no moves were made.");
+                } else Console.log("Could not delete game file.");
+
+                cancelComputerMove(); // After saving, so that the computer makes its move when the game is resumed.
             });
     }
 
     /**
-     * Saves the current game progress.
+     * Saves the current game progress and waits until it is on the disk.
      *
      * @param file File to save game data to.
      */
     private void saveCurrentProgress(File file) {
-        try (FileWriter writer = new FileWriter(file)) {
+        try {
             Console.log("Saving current game progress.");
-            jsonObject.put("ElapsedTime", timePlayed); // Contains the time elapsed time since game start.
-            jsonObject.put("nodes", getGameProgress()); // The array of nodes which contains the main game progress.
-            jsonObject.put("winner", winner.toString()); // Contains the winner of the game.
-            jsonObject.put("state", finished); // Contains if the game is finished yet.
-            jsonObject.put("move", move.toString()); // Contains the last move which took place in the game.
-            jsonObject.put("timeX", jsonArrayX); // Contains the time taken for each move by X.
-            jsonObject.put("timeO", jsonArrayO); // Contains the time taken for each move by O.
-            jsonObject.put("LastMoveTime", timeForMove); // Contains how much time had elapsed already on the last move.
-            writer.write(jsonObject.toJSONString());
-            writer.close();
+            JSONObject progress = getProgress();
+            autoSaver.flush(progress);
+            NoughtsAndCrosses.getCatalog().update(file, progress);
             Console.log("Saved game progress at " + file.getAbsolutePath());
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Makes the moves saved in the journal since the game file was last written.
+     * A journal none of whose moves follow is deleted, so that the moves made now are not appended after them.
+     *
+     * @param moves The moves of the journal.
+     * @return Number of moves made.
+     */
+    private int replayJournal(List<MoveJournal.Move> moves) throws IOException {
+        List<MoveJournal.Move> replayed = replay(game, moves);
+        if (replayed.isEmpty()) {
+            autoSaver.clearJournal();
+            return 0;
+        }
+
+        // The computer is to move if the last move was made by the player.
+        if (jsonObject.get("opponent").equals("computer"))
+            jsonObject.put("computerToMove", !replayed.get(replayed.size() - 1).isComputer());
+
+        Console.log("Replayed " + replayed.size() + " moves from the journal.");
+        return replayed.size();
+    }
+
+    /**
+     * Makes the moves of a journal on a game, and adds the time they took to its clocks.
+     * Moves the game already has are skipped, the journal ends at the first move which does not follow.
+     *
+     * @return The moves made.
+     */
+    static List<MoveJournal.Move> replay(Game game, List<MoveJournal.Move> moves) {
+        long timePlayed = game.getElapsedTime();
+        double journalTime = 0;
+        List<MoveJournal.Move> replayed = new ArrayList<>();
+
+        for (MoveJournal.Move move : moves) {
+            if (move.getPly() < game.getTotalMoves()) continue;
+            if (game.isFinished() || move.getPly() != game.getTotalMoves() || move.getPlayer() != game.getMove()
+                    || move.getCell() >= game.getRules().getCells() || !game.isEmpty(move.getCell())) break;
+
+            game.restoreClocks(timePlayed, move.getTime());
+            game.play(move.getCell());
+            journalTime += move.getTime();
+            replayed.add(move);
+        }
+
+        if (!replayed.isEmpty()) game.restoreClocks(timePlayed + Math.round(journalTime), 0);
+        return replayed;
+    }
+
+    /**
+     * Gets a snapshot of the game to be saved. The primary JSON object is copied, so the snapshot can be written
+     * on another thread.
+     */
+    private JSONObject getProgress() {
+        JSONObject progress = new JSONObject();
+        progress.putAll(jsonObject);
+        progress.put("ElapsedTime", game.getElapsedTime()); // Contains the time elapsed time since game start.
+        progress.put("nodes", getGameProgress()); // The array of nodes which contains the main game progress.
+        progress.put("winner", game.getWinner().toString()); // Contains the winner of the game.
+        progress.put("state", game.isFinished()); // Contains if the game is finished yet.
+        progress.put("move", game.getMove().toString()); // Contains the last move which took place in the game.
+        progress.put("timeX", getTimes(States.X)); // Contains the time taken for each move by X.
+        progress.put("timeO", getTimes(States.O)); // Contains the time taken for each move by O.
+        progress.put("LastMoveTime", game.getMoveTime()); // Contains how much time had elapsed already on the last move.
+        progress.put("computerToMove", pendingMove != null || isComputerToMove()); // Contains if the computer was still making a move.
+        progress.put("size", game.getRules().getSize()); // Contains the number of rows and columns of the board.
+        progress.put("winLength", game.getRules().getWinLength()); // Contains the number of marks in a row needed to win.
+        return progress;
+    }
+
     /**
      * Gets the JSON Array of current Tic Tac Toe game progress.
      *
@@ -288,10 +350,29 @@ public class GameEngine extends Structure {
      */
     private JSONArray getGameProgress() {
         JSONArray array = new JSONArray();
-        for (int i = 0; i < 9; i++) array.add(gameNodes[i].getText());
+        for (int i = 0; i < game.getRules().getCells(); i++) array.add(game.isEmpty(i) ? " " : game.get(i).toString());
+        return array;
+    }
+
+    /**
+     * @return A JSON Array with the time taken for each move of a player.
+     */
+    private JSONArray getTimes(States player) {
+        JSONArray array = new JSONArray();
+        for (double time : game.getTimes(player)) array.add(time);
         return array;
     }
 
+    /**
+     * Puts back the time taken for each move of a player.
+     *
+     * @param array JSON Array of the times, may be missing from the game file.
+     */
+    private void restoreTimes(States player, JSONArray array) {
+        if (array == null) return;
+        for (Object time : array) game.restoreTime(player, ((Number) time).doubleValue());
+    }
+
     /**
      * Sets the JSON Array of current tic tac toe game progress.
      *
@@ -299,14 +380,10 @@ public class GameEngine extends Structure {
      *              from.
      */
     private void setGameProgress(JSONArray array) {
-        for (int i = 0; i < 9; i++) {
+        for (int i = 0; i < gameNodes.length; i++) {
+            game.restore(i, getMoveID(array.get(i).toString()));
             gameNodes[i].setText(array.get(i).toString());
-            if (!gameNodes[i].getText().equals(" ")) gameNodes[i].setDisable(true);
-
-            if (getMoveID(gameNodes[i].getText()).equals(States.X))
-                movesX++; // Number of moves which are Crosses.
-            else if (getMoveID(gameNodes[i].getText()).equals(States.O))
-                movesO++; // Number of moves which are Noughts.
+            if (!game.isEmpty(i)) gameNodes[i].setDisable(true);
         }
 
         Console.log("Previous game nodes were found as " + array);
@@ -316,11 +393,16 @@ public class GameEngine extends Structure {
      * Gets the next move based on moves already made or generates a random move.
      * Used only when the next move is not specified in JSON of the game file.
      *
-     * @param movesX Total number of moves of Cross.
-     * @param movesO Total number of moves of Nought.
      * @return The next move.
      */
-    private States getCurrentMove(int movesX, int movesO) {
+    private States getCurrentMove() {
+        int movesX = 0; // Total moves made of X
+        int movesO = 0; // Total moves made of O
+        for (int i = 0; i < game.getRules().getCells(); i++) {
+            if (game.get(i) == States.X) movesX++;
+            else if (game.get(i) == States.O) movesO++;
+        }
+
         // Figure out the next move based on the moves already made.
         if (movesX > movesO) return States.O;
         else if (movesX < movesO) return States.X;
@@ -334,81 +416,134 @@ public class GameEngine extends Structure {
      * Sets up each button of the game and its properties.
      */
     private void setupMatrix() {
-        for (int i = 0; i < 9; i++) {
+        int size = game.getRules().getSize();
+        double cellSize = Math.min(100, 480.0 / size); // Larger boards get smaller cells to fit the scene.
+        gameNodes = new Button[game.getRules().getCells()];
+
+        for (int i = 0; i < gameNodes.length; i++) {
             int finalI = i; // Iteration number has to be effectively final for usage in lambda expressions.
             gameNodes[i] = new ButtonBuilder(" ")
-                    .setFont(Font.font("Arial", FontWeight.BOLD, 32))
-                    .setPrefHeight(100)
-                    .setPrefWidth(100)
+                    .setFont(Font.font("Arial", FontWeight.BOLD, Math.max(10, cellSize * 0.32)))
+                    .setSize(cellSize, cellSize)
                     .setStyle("-jfx-button-type: RAISED; -fx-background-color: gold; -fx-text-fill: blue;")
                     .setID(String.valueOf(i))
                     .onMouseClick(event -> {
-                        doMove(finalI);
-
-                        if (difficultyLevel != null && !finished) {
-                            if (difficultyLevel.equals(Levels.EASY)) {
-                                int cell = getAnyAvailSpot(gameNodes);
-                                Console.log("Computer made a move at cell " + cell);
-
-                                doMove(cell);
-                            } else if (difficultyLevel.equals(Levels.INTERMEDIATE)) {
-                                doMove(new InterMove(gameNodes, move).getCellID());
-                            } else if (difficultyLevel.equals(Levels.IMPOSSIBLE)) {
-                                doMove(new Minimax(gameNodes, move).getCellID());
-                            } else throw new IllegalStateException("Unknown difficulty level!");
-                        }
+                        if (pendingMove != null || game.isFinished()) return; // The board is locked while the computer is making a move.
+                        doMove(finalI, false);
+
+                        if (difficultyLevel != null && !game.isFinished()) requestComputerMove();
                     })
                     .build();
         }
 
-        for (int i = 0; i < 9; i++) gameGrid.addColumn(i % 3, gameNodes[i]);
+        for (int i = 0; i < gameNodes.length; i++) gameGrid.add(gameNodes[i], i % size, i / size);
         if (NoughtsAndCrosses.getWriter().getTheme().equals(Themes.DARK)) gameGrid.setGridLinesVisible(true);
 
-        gameGrid.setVgap(30);
-        gameGrid.setHgap(30);
+        gameGrid.setVgap(Math.max(2, 90.0 / size));
+        gameGrid.setHgap(Math.max(2, 90.0 / size));
         gameGrid.setPadding(new Insets(10));
         gameGrid.setAlignment(Pos.CENTER);
     }
 
-    private void doMove(int id) {
+    /**
+     * Lets the computer search for its move on the AI thread. The board is locked until the move is made
+     * on the JavaFX thread.
+     */
+    private void requestComputerMove() {
+        gameGrid.setMouseTransparent(true);
+
+        CompletableFuture<Integer> future = aiEngine.requestMove(game.getGrid(), game.getMove(), difficultyLevel, getThinkingTime(),
+                NoughtsAndCrosses.getWriter().getPlayouts());
+        pendingMove = future;
+        future.whenComplete((cell, throwable) -> Platform.runLater(() -> {
+            if (pendingMove != future || game.isFinished()) return; // Stale result of a cancelled move.
+
+            pendingMove = null;
+            gameGrid.setMouseTransparent(false);
+
+            if (throwable == null) doMove(cell, true);
+            else if (!(throwable instanceof CancellationException)) {
+                Console.error("Computer could not make a move: " + (throwable instanceof CompletionException ? throwable.getCause() : throwable));
+            }
+        }));
+    }
+
+    /**
+     * The computer may think for half of the max time allowed in Timed mode, so that it never runs out of time itself.
+     *
+     * @return Time budget of a computer move in milliseconds.
+     */
+    private long getThinkingTime() {
+        return NoughtsAndCrosses.getWriter().getSettings().getMaxTime() * 500;
+    }
+
+    /**
+     * Cancels the move the computer is still searching for. The search is stopped and its result is discarded.
+     */
+    private void cancelComputerMove() {
+        if (pendingMove == null) return;
+
+        pendingMove.cancel(false);
+        pendingMove = null;
+        Console.log("Cancelled the move the computer was making.");
+    }
+
+    /**
+     * @return True if the game was saved while the computer was making a move, and no move was made since.
+     */
+    private boolean isComputerToMove() {
+        return jsonObject.containsKey("computerToMove") && jsonObject.get("computerToMove").equals(true);
+    }
+
+    /**
+     * @param computer Is the move made by the computer.
+     */
+    private void doMove(int id, boolean computer) {
+        States move = game.getMove();
+        if (move != States.X && move != States.O)
+            throw new IllegalStateException("Check the move passed! Move can only be a nought or a cross.");
+
+        boolean over = game.play(id);
         gameNodes[id].setText(move.toString());
         gameNodes[id].setDisable(true);
 
-        switch (move) {
-            case X:
-                Console.log("Time taken for X's move " + (movesX + 1) + " was " + round(timeForMove) + "s");
-                movesX++;
-                jsonArrayX.add(round(timeForMove));
-                move = States.O;
-                break;
-            case O:
-                Console.log("Time taken for O's move " + (movesO + 1) + " was " + round(timeForMove) + "s");
-                movesO++;
-                jsonArrayO.add(round(timeForMove));
-                move = States.X;
-                break;
-            default:
-                throw new IllegalStateException("Check the move passed! Move can only be a nought or a cross.");
-        }
+        int moves = game.getMoves(move);
+        double time = game.getTimes(move)[moves - 1];
+        Console.log("Time taken for " + move + "'s move " + moves + " was " + time + "s");
+        autoSaver.append(new MoveJournal.Move(game.getTotalMoves() - 1, id, move, computer, time));
+        jsonObject.put("computerToMove", false); // From now on the computer is to move only while a move is pending.
 
-        if (checkForWin(gameNodes)) {
-            winner = getConjugateMove(move);
-            win();
-        } else if (getTotalMoves(gameNodes) >= 9) {
-            Console.log("The game has resulted in a draw!");
-            win();
-        } else {
-            nextMove.setText(move.toString());
-            resetTimer();
+        if (over) win(); // Only the move which ended the game gets here.
+        else {
+            nextMove.setText(game.getMove().toString()); // The game has already reset the time of the move.
         }
     }
 
     /**
-     * Block of code which is executed when a game is finished.
+     * Block of code which is executed when a game is finished. Called once, by whoever ended the game,
+     * and always run on the JavaFX thread.
      */
-    private synchronized void win() {
-        Console.log("A win for " + winner.toString());
-        finished = true;
+    private void win() {
+        if (!Platform.isFxApplicationThread()) {
+            Platform.runLater(this::win);
+            return;
+        }
+
+        switch (game.getStatus()) {
+            case WON:
+                Console.log("A win for " + game.getWinner().toString());
+                break;
+            case DRAW:
+                Console.log("The game has resulted in a draw!");
+                break;
+            case TIMED_OUT:
+                Console.log("Time is up for " + game.getMove() + " to make a move. Hence " + game.getWinner() + " is the winner.");
+                break;
+            default:
+                throw new IllegalStateException("The game is not finished: " + game.getStatus());
+        }
+
+        cancelComputerMove(); // The time may run out while the computer is making a move.
 
         saveCurrentProgress(theFile);
         App.getStage().setOnCloseRequest(null); // Save on close request no longer needed as the game is over.
@@ -425,19 +560,34 @@ public class GameEngine extends Structure {
     }
 
     /**
-     * Resets the time of the Timer Executor.
-     * As soon as a move is made the previous timer is stopped and a new one is started.
+     * Starts the clocks of the game. The clock stops by itself when the game is finished.
      */
-    private void resetTimer() {
-        timerExecutor.shutdown();
-        timeForMove = 0; // Reset time elapsed for a move.
+    private void startClock() {
+        clock = new GameClock(game, this::showClocks, () -> {
+            timeLeft.setText("Switching scenes..");
+            disableButtons(gameNodes);
+            win();
+        });
+        clock.start();
+    }
+
+    /**
+     * Shows the total time played and the time left for the move in Timed mode.
+     */
+    private void showClocks() {
+        long timePlayed = game.getElapsedTime();
+        if (timePlayed != shownElapsedTime) {
+            timeElapsed.setText(String.format("%02d:%02d:%02d", timePlayed / 3600, (timePlayed % 3600) / 60, timePlayed % 60));
+            // Integer formatted as:            HH : MM : SS
+            shownElapsedTime = timePlayed;
+        }
 
-        timerExecutor = Executors.newSingleThreadScheduledExecutor();
-        timerExecutor.scheduleWithFixedDelay(timerRunnable, 0, 100, TimeUnit.MILLISECONDS);
+        if (game.isTimed() && game.getTotalMoves() > 0)
+            timeLeft.setText(String.valueOf(round(Math.max(0, game.getMaxTime() - game.getMoveTime()))));
     }
 
     public Scene getScene() {
-        if (finished) return dashboard.getScene();
+        if (game.isFinished()) return dashboard.getScene();
         else return scene;
     }
 }
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2019 Akshit Sinha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wimi.tictactoe.client.game.mechanics;
+
+import com.wimi.tictactoe.client.game.writers.GameFile;
+import com.wimi.tictactoe.util.Console;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.ParseException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * @Description Checks that games survive a round trip through the .nc game files, without any user interface.
+ * <p>
+ * Games on the classic and the largest board are written and read back, a game file of the older JSON format is
+ * read, and a file with a damaged byte must be refused. The first failed check is thrown.
+ * </p>
+ */
+@SuppressWarnings("unchecked")
+public class GameFileCheck {
+
+    // A classic game in the middle of play as the JSON format saved it, from before boards had sizes.
+    private static final String LEGACY_GAME = "{\"opponent\":\"computer\",\"mode\":\"timed\","
+            + "\"nodes\":[\"X\",\" \",\" \",\" \",\"O\",\" \",\" \",\" \",\"X\"],\"ElapsedTime\":12,"
+            + "\"LastMoveTime\":1.5,\"timeX\":[2.0,3.5],\"timeO\":[4.0],\"winner\":\"NONE\",\"move\":\"O\","
+            + "\"state\":false,\"computerToMove\":true}";
+
+    public static void main(String[] args) throws IOException, ParseException {
+        File directory = Files.createTempDirectory("tictactoe").toFile();
+        File file = new File(directory, "check.nc");
+        try {
+            checkRoundTrip(file, newGame());
+            checkRoundTrip(file, game(3, 3, false));
+            checkRoundTrip(file, game(15, 5, true));
+            checkUnknownKeys(file);
+            checkLegacy(file);
+            checkCorrupted(file);
+        } finally {
+            file.delete();
+            directory.delete();
+        }
+
+        Console.log("All game file checks passed.");
+    }
+
+    private static void checkRoundTrip(File file, JSONObject game) throws IOException, ParseException {
+        GameFile.write(file, game);
+        JSONObject read = GameFile.read(file);
+        check(read.equals(game), "The game was read back as " + read + " instead of " + game);
+    }
+
+    /**
+     * Only the keys of the format are written, anything else is dropped.
+     */
+    private static void checkUnknownKeys(File file) throws IOException, ParseException {
+        JSONObject game = game(3, 3, false);
+        game.put("unknown", "dropped");
+        GameFile.write(file, game);
+        JSONObject read = GameFile.read(file);
+
+        game.remove("unknown");
+        check(read.equals(game), "The game was read back as " + read + " instead of " + game);
+    }
+
+    /**
+     * A JSON game file is read as it is, and is the same game once it is written again in the binary format.
+     */
+    private static void checkLegacy(File file) throws IOException, ParseException {
+        Files.write(file.toPath(), LEGACY_GAME.getBytes(StandardCharsets.UTF_8));
+        JSONObject legacy = GameFile.read(file);
+        check(((JSONArray) legacy.get("nodes")).size() == 9 && legacy.get("ElapsedTime").equals(12L)
+                && legacy.get("move").equals("O"), "The JSON game file was read as " + legacy);
+
+        GameFile.write(file, legacy);
+        JSONObject read = GameFile.read(file);
+        legacy.put("size", 3L);
+        legacy.put("winLength", 3L);
+        check(read.equals(legacy), "The JSON game was read back as " + read + " instead of " + legacy);
+    }
+
+    private static void checkCorrupted(File file) throws IOException, ParseException {
+        GameFile.write(file, game(15, 5, false));
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(file.toPath(), bytes);
+
+        try {
+            GameFile.read(file);
+        } catch (IOException e) {
+            return;
+        }
+
+        throw new IllegalStateException("A game file with a damaged byte was read.");
+    }
+
+    /**
+     * @return A game which has been configured but not started.
+     */
+    private static JSONObject newGame() {
+        JSONObject game = new JSONObject();
+        game.put("opponent", "human");
+        game.put("mode", "untimed");
+        game.put("size", 3L);
+        game.put("winLength", 3L);
+        return game;
+    }
+
+    /**
+     * @return A game in progress, or won by O, typed and rounded to tenths of a second as a game file is read.
+     */
+    private static JSONObject game(int size, int winLength, boolean finished) {
+        JSONArray nodes = new JSONArray();
+        for (int i = 0; i < size * size; i++) nodes.add(i % 7 == 0 ? "X" : i % 5 == 0 ? "O" : " ");
+
+        JSONArray timesOfX = new JSONArray();
+        JSONArray timesOfO = new JSONArray();
+        for (int i = 0; i < size; i++) {
+            timesOfX.add(i + 0.5);
+            timesOfO.add(i * 13 / 10.0);
+        }
+
+        JSONObject game = new JSONObject();
+        game.put("opponent", "computer");
+        game.put("mode", "timed");
+        game.put("size", (long) size);
+        game.put("winLength", (long) winLength);
+        game.put("nodes", nodes);
+        game.put("ElapsedTime", 4000L);
+        game.put("LastMoveTime", 2.7);
+        game.put("timeX", timesOfX);
+        game.put("timeO", timesOfO);
+        game.put("winner", finished ? "O" : "NONE");
+        game.put("move", finished ? "X" : "O");
+        game.put("state", finished);
+        game.put("computerToMove", !finished);
+        return game;
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) throw new IllegalStateException(message);
+    }
+}
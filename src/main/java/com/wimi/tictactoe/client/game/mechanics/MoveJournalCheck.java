@@ -0,0 +1,115 @@
+/*
+ * Copyright 2019 Akshit Sinha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wimi.tictactoe.client.game.mechanics;
+
+import com.wimi.tictactoe.client.game.Game;
+import com.wimi.tictactoe.client.game.Structure.States;
+import com.wimi.tictactoe.client.game.algo.Rules;
+import com.wimi.tictactoe.client.game.writers.MoveJournal;
+import com.wimi.tictactoe.util.Console;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @Description Checks that a journal cut short by a crash is replayed up to its last whole move, without any user
+ * interface.
+ * <p>
+ * The moves of a game are written to a journal whose last record is then cut off partway, as a crash in the middle
+ * of a write leaves it. The journal must read back every move but the last, and replaying it on a new game must make
+ * exactly those moves. The first failed check is thrown.
+ * </p>
+ */
+public class MoveJournalCheck {
+
+    private static final int MOVES = 12;
+    private static final Rules RULES = new Rules(15, 5);
+
+    public static void main(String[] args) throws IOException {
+        File directory = Files.createTempDirectory("tictactoe").toFile();
+        File gameFile = new File(directory, "check.nc");
+        File journalFile = MoveJournal.getFile(gameFile);
+        try {
+            List<MoveJournal.Move> moves = play();
+            try (MoveJournal journal = new MoveJournal(gameFile)) {
+                for (MoveJournal.Move move : moves) journal.append(move);
+            }
+
+            check(journalFile.length() == (long) MOVES * MoveJournal.RECORD_SIZE, "The journal has "
+                    + journalFile.length() + " bytes instead of " + MOVES * MoveJournal.RECORD_SIZE);
+            try (RandomAccessFile file = new RandomAccessFile(journalFile, "rw")) {
+                file.setLength(file.length() - MoveJournal.RECORD_SIZE / 2);
+            }
+
+            List<MoveJournal.Move> read = new MoveJournal(gameFile).read();
+            check(read.size() == MOVES - 1, "The journal read " + read.size() + " moves instead of " + (MOVES - 1));
+            for (int i = 0; i < read.size(); i++) checkMove(read.get(i), moves.get(i));
+
+            Game game = new Game(RULES, States.X, false, 0);
+            List<MoveJournal.Move> replayed = GameEngine.replay(game, read);
+            check(replayed.size() == MOVES - 1 && game.getTotalMoves() == MOVES - 1,
+                    "The journal replayed " + replayed.size() + " moves instead of " + (MOVES - 1));
+
+            int[] history = game.getHistory();
+            double time = 0;
+            for (int i = 0; i < MOVES - 1; i++) {
+                MoveJournal.Move move = moves.get(i);
+                check(history[i] == move.getCell() && game.get(move.getCell()) == move.getPlayer(),
+                        "Move " + i + " was not replayed in cell " + move.getCell());
+                time += move.getTime();
+            }
+
+            check(game.get(moves.get(MOVES - 1).getCell()) == States.NONE, "The move cut off was replayed.");
+            check(game.getElapsedTime() == Math.round(time),
+                    "The clock was put back to " + game.getElapsedTime() + " seconds instead of " + Math.round(time));
+        } finally {
+            journalFile.delete();
+            directory.delete();
+        }
+
+        Console.log("All move journal checks passed.");
+    }
+
+    /**
+     * @return The moves of a game on the large board which is not over yet, each taking a different time.
+     */
+    private static List<MoveJournal.Move> play() {
+        Game game = new Game(RULES, States.X, false, 0);
+        List<MoveJournal.Move> moves = new ArrayList<>();
+        for (int i = 0; i < MOVES; i++) {
+            int cell = i * 17 % RULES.getCells();
+            moves.add(new MoveJournal.Move(i, cell, game.getMove(), i % 2 == 1, (i + 1) * 7 / 10.0));
+            game.play(cell);
+        }
+
+        check(!game.isFinished(), "The moves of the check finish the game.");
+        return moves;
+    }
+
+    private static void checkMove(MoveJournal.Move read, MoveJournal.Move written) {
+        check(read.getPly() == written.getPly() && read.getCell() == written.getCell()
+                        && read.getPlayer() == written.getPlayer() && read.isComputer() == written.isComputer()
+                        && read.getTime() == written.getTime(), "Move " + written.getPly() + " was read back differently.");
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) throw new IllegalStateException(message);
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2019 Akshit Sinha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wimi.tictactoe.client.game.mechanics;
+
+import com.wimi.tictactoe.client.game.Game;
+import com.wimi.tictactoe.client.game.Structure.States;
+import com.wimi.tictactoe.client.game.algo.MonteCarlo;
+import com.wimi.tictactoe.client.game.algo.Rules;
+import com.wimi.tictactoe.util.Console;
+import com.wimi.tictactoe.util.Levels;
+import com.wimi.tictactoe.util.RandomSource;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * @Description Plays the computer against itself at every pairing of difficulty levels, without any user interface.
+ * <p>
+ * Games are spread across one thread per core. Each game is written to a CSV file as soon as it ends, one column
+ * per field, and the win and draw rates of every pairing are logged at the end together with the games per second.
+ * Each game seeds the random numbers of its thread, so the same seed plays the same classic games again.
+ * </p>
+ */
+public class SelfPlay {
+
+    private static final String HEADER = "x_level,o_level,game,seed,first,winner,moves,micros";
+    private static final long THINKING_TIME = 100; // Milliseconds per move on boards larger than the classic one.
+
+    private final Rules rules;
+    private final int games;
+    private final long seed;
+    private final Levels[] levels = Levels.values();
+    private final AIEngine aiEngine = new AIEngine();
+    private final AtomicIntegerArray results; // Wins of X, wins of O and draws of each pairing.
+    private final Writer writer;
+
+    private SelfPlay(Rules rules, int games, long seed, Writer writer) {
+        this.rules = rules;
+        this.games = games;
+        this.seed = seed;
+        this.writer = writer;
+        this.results = new AtomicIntegerArray(levels.length * levels.length * 3);
+    }
+
+    /**
+     * @param args Games per pairing, the CSV file to write and optionally the board size, the win length and the seed.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2 || args.length > 5)
+            throw new IllegalArgumentException("Usage: SelfPlay <games per pairing> <output file> [size] [win length] [seed]");
+
+        int games = Integer.parseInt(args[0]);
+        Rules rules = args.length >= 4 ? new Rules(Integer.parseInt(args[2]), Integer.parseInt(args[3])) : Rules.CLASSIC;
+        long seed = args.length == 5 ? Long.parseLong(args[4]) : System.nanoTime();
+
+        Console.log("Playing " + games + " games per pairing on a " + rules + " with seed " + seed + ".");
+        try (Writer writer = new BufferedWriter(new FileWriter(args[1]))) {
+            writer.write(HEADER + System.lineSeparator());
+            new SelfPlay(rules, games, seed, writer).run();
+        }
+    }
+
+    private void run() throws InterruptedException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+
+        Console.setMuted(true); // The computer players log every move.
+        for (int pairing = 0; pairing < levels.length * levels.length; pairing++) {
+            for (int game = 0; game < games; game++) {
+                int finalPairing = pairing;
+                int finalGame = game;
+                executor.execute(() -> play(finalPairing, finalGame));
+            }
+        }
+
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        Console.setMuted(false);
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        int total = games * levels.length * levels.length;
+        for (int pairing = 0; pairing < levels.length * levels.length; pairing++) {
+            Console.log(String.format("%-12s vs %-12s X won %5.1f%%, O won %5.1f%%, drawn %5.1f%%",
+                    levels[pairing / levels.length], levels[pairing % levels.length],
+                    100.0 * results.get(pairing * 3) / games, 100.0 * results.get(pairing * 3 + 1) / games,
+                    100.0 * results.get(pairing * 3 + 2) / games));
+        }
+
+        Console.log(String.format("Played %d games in %.1f seconds on %d threads, %.0f games per second.",
+                total, seconds, threads, total / seconds));
+    }
+
+    /**
+     * Plays one game and records its result. X and O take turns to start.
+     */
+    private void play(int pairing, int index) {
+        Levels levelX = levels[pairing / levels.length];
+        Levels levelO = levels[pairing % levels.length];
+        long gameSeed = seed + (long) pairing * games + index;
+        RandomSource.setSeed(gameSeed);
+
+        long start = System.nanoTime();
+        States first = index % 2 == 0 ? States.X : States.O;
+        Game game = new Game(rules, first, false, 0);
+        while (!game.isFinished()) {
+            Levels level = game.getMove() == States.X ? levelX : levelO;
+            game.play(aiEngine.getMove(game.getGrid(), game.getMove(), level, THINKING_TIME, MonteCarlo.DEFAULT_PLAYOUTS));
+        }
+
+        long micros = (System.nanoTime() - start) / 1000;
+        results.incrementAndGet(pairing * 3 + (game.getWinner() == States.NONE ? 2 : game.getWinner().ordinal() - 1));
+
+        String row = levelX + "," + levelO + "," + index + "," + gameSeed + "," + first + "," + game.getWinner() + ","
+                + game.getTotalMoves() + "," + micros + System.lineSeparator();
+        synchronized (writer) {
+            try {
+                writer.write(row);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
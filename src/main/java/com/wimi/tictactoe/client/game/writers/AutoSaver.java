@@ -0,0 +1,103 @@
+/*
+ * Copyright 2019 Akshit Sinha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wimi.tictactoe.client.game.writers;
+
+import org.json.simple.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * @Description Saves a game in the background while it is played.
+ * <p>
+ * Each move is appended to the {@link MoveJournal} of the game on the autosave thread. When the game ends or is
+ * closed the whole game is written with {@link GameFile#write(File, JSONObject, boolean)} and the journal is deleted.
+ * </p>
+ */
+public class AutoSaver {
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Game autosave");
+        thread.setDaemon(true); // Must not keep the application alive, the last save is flushed.
+        return thread;
+    });
+
+    private final File file;
+    private final MoveJournal journal;
+
+    /**
+     * @param file The game file to save to.
+     */
+    public AutoSaver(File file) {
+        this.file = file;
+        this.journal = new MoveJournal(file);
+    }
+
+    /**
+     * Reads the moves made since the game file was last written. Must be called before any move is saved.
+     */
+    public List<MoveJournal.Move> readJournal() throws IOException {
+        return journal.read();
+    }
+
+    /**
+     * Deletes the journal when its moves cannot be replayed. Must be called before any move is saved.
+     */
+    public void clearJournal() throws IOException {
+        journal.delete();
+    }
+
+    /**
+     * Saves a move on the autosave thread.
+     */
+    public void append(MoveJournal.Move move) {
+        executor.execute(() -> {
+            try {
+                journal.append(move);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    /**
+     * Writes the whole game and waits until it is on the disk, then deletes the journal.
+     * Used when the game ends or is closed.
+     *
+     * @param game A snapshot of the game which is not changed afterwards.
+     */
+    public void flush(JSONObject game) throws IOException {
+        Future<?> future = executor.submit(() -> {
+            GameFile.write(file, game, true);
+            journal.delete(); // A crash before this replays moves the game file already has, which are skipped.
+            return null;
+        });
+
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while saving " + file.getName(), e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+    }
+}
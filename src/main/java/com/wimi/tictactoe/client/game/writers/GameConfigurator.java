@@ -21,6 +21,7 @@ import com.wimi.tictactoe.builders.ButtonBuilder;
 import com.wimi.tictactoe.builders.TextBuilder;
 import com.wimi.tictactoe.client.NoughtsAndCrosses;
 import com.wimi.tictactoe.client.game.mechanics.GameEngine;
+import com.wimi.tictactoe.util.BoardSizes;
 import com.wimi.tictactoe.util.Console;
 import javafx.animation.FadeTransition;
 import javafx.geometry.Insets;
@@ -28,6 +29,7 @@ import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
@@ -37,7 +39,6 @@ import javafx.util.Duration;
 import org.json.simple.JSONObject;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 
 /**
@@ -85,12 +86,28 @@ public class GameConfigurator {
                 .setDisabled(true)
                 .build();
 
+        HBox sizeSelection = new HBox(15);
+        sizeSelection.setAlignment(Pos.CENTER);
+        setBoardSize(BoardSizes.CLASSIC); // The classic 3x3 board is selected by default.
+        for (BoardSizes boardSize : BoardSizes.values()) {
+            Button sizeButton = new ButtonBuilder(boardSize.getLabel())
+                    .setPrefWidth(80)
+                    .setStyle("-jfx-button-type: RAISED; -fx-background-color: #636989; -fx-text-fill: white;")
+                    .setDisabled(boardSize == BoardSizes.CLASSIC)
+                    .build();
+            sizeButton.setOnAction(event -> {
+                setBoardSize(boardSize);
+                sizeSelection.getChildren().forEach(node -> node.setDisable(node == sizeButton)); // The selected size is disabled.
+            });
+            sizeSelection.getChildren().add(sizeButton);
+        }
+
         VBox typeSelection = new VBox(35);
         typeSelection.getChildren().addAll(gameSelectHuman, gameSelectComp);
         typeSelection.setAlignment(Pos.CENTER);
 
         VBox timedSelection = new VBox(35);
-        timedSelection.getChildren().addAll(notTimedGame, timedGame);
+        timedSelection.getChildren().addAll(sizeSelection, notTimedGame, timedGame);
         timedSelection.setAlignment(Pos.CENTER);
         timedSelection.setOpacity(0.1);
 
@@ -140,8 +157,9 @@ public class GameConfigurator {
             gameSelectComp.setDisable(true);
             App.getStage().setOnCloseRequest(null);
 
-            try (FileWriter writer = new FileWriter(file)) {
-                writer.write(jsonObject.toJSONString());
+            try {
+                GameFile.write(file, jsonObject);
+                NoughtsAndCrosses.getCatalog().update(file, jsonObject);
             } catch (IOException e) {
                 e.printStackTrace();
             }
@@ -156,8 +174,9 @@ public class GameConfigurator {
             gameSelectComp.setDisable(true);
             App.getStage().setOnCloseRequest(null);
 
-            try (FileWriter writer = new FileWriter(file)) {
-                writer.write(jsonObject.toJSONString());
+            try {
+                GameFile.write(file, jsonObject);
+                NoughtsAndCrosses.getCatalog().update(file, jsonObject);
             } catch (IOException e) {
                 e.printStackTrace();
             }
@@ -180,6 +199,17 @@ public class GameConfigurator {
         NoughtsAndCrosses.setSceneBackground(root);
     }
 
+    /**
+     * Sets the size of the board and the number of marks in a row needed to win.
+     *
+     * @param boardSize The board selected by the user.
+     */
+    private void setBoardSize(BoardSizes boardSize) {
+        jsonObject.put("size", boardSize.getSize());
+        jsonObject.put("winLength", boardSize.getWinLength());
+        Console.log("Selected a " + boardSize.getLabel() + " board with " + boardSize.getWinLength() + " in a row to win.");
+    }
+
     /**
      * Deletes a file.
      *
@@ -16,6 +16,7 @@
 
 package com.wimi.tictactoe.client.game.writers;
 
+import com.wimi.tictactoe.client.NoughtsAndCrosses;
 import com.wimi.tictactoe.util.Console;
 
 import java.io.File;
@@ -50,6 +51,8 @@ public class GameCreator {
                     Console.log("Could not create file.");
                     if (debugAssetPath() && GAME_FILE.createNewFile()) Console.log("File created: " + gameName);
                 }
+
+                if (GAME_FILE.exists()) NoughtsAndCrosses.getCatalog().update(GAME_FILE);
             } catch (IOException e) {
                 e.printStackTrace();
             }
@@ -0,0 +1,278 @@
+/*
+ * Copyright 2019 Akshit Sinha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wimi.tictactoe.client.game.writers;
+
+import com.wimi.tictactoe.util.Histogram;
+import com.wimi.tictactoe.util.Metrics;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * @Description Reads and writes the .nc game files.
+ * <p>
+ * Games are written in a compact binary format and handed to the game as the same JSON object the older
+ * JSON files are parsed to, so files of both formats can be opened.
+ * </p>
+ * <pre>
+ * int     magic "NCGF"
+ * byte    version
+ * byte    flags, see the FLAG constants
+ * byte    size, byte win length
+ * byte    winner, byte move, as ordinals of States
+ * byte[]  cells, 2 bits each, 4 cells per byte                          (with progress)
+ * varint  elapsed seconds, varint deciseconds of the last move          (with progress)
+ * varint  number of moves of X, varint deciseconds of each, same for O  (with progress)
+ * int     CRC32 of every byte before it
+ * </pre>
+ */
+@SuppressWarnings("unchecked")
+public final class GameFile {
+
+    private static final int MAGIC = 0x4E434746; // NCGF
+    private static final int VERSION = 1;
+    private static final String[] STATES = {"NONE", "X", "O"};
+    private static final String[] NODES = {" ", "X", "O"};
+    private static final Histogram loads = Metrics.timer("file.load");
+    private static final Histogram saves = Metrics.timer("file.save");
+
+    private static final int FLAG_OPPONENT = 1; // The opponent is chosen.
+    private static final int FLAG_COMPUTER = 1 << 1; // The opponent is the computer.
+    private static final int FLAG_MODE = 1 << 2; // The mode is chosen.
+    private static final int FLAG_TIMED = 1 << 3; // The game is in Timed mode.
+    private static final int FLAG_PROGRESS = 1 << 4; // The board, clocks and result are saved.
+    private static final int FLAG_FINISHED = 1 << 5;
+    private static final int FLAG_COMPUTER_TO_MOVE = 1 << 6; // The computer was making a move when saved.
+
+    private GameFile() {
+    }
+
+    /**
+     * Reads a game file of either format.
+     *
+     * @return The game as a JSON object with the keys of the JSON format.
+     * @throws IOException If the file cannot be read, or its checksum or version does not match.
+     */
+    public static JSONObject read(File file) throws IOException, ParseException {
+        long start = System.nanoTime();
+        try {
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            if (isBinary(bytes)) return decode(bytes);
+
+            return (JSONObject) new JSONParser().parse(new StringReader(new String(bytes, StandardCharsets.UTF_8)));
+        } finally {
+            loads.recordSince(start);
+        }
+    }
+
+    /**
+     * Writes a game in the binary format. Keys the format does not know are not kept.
+     */
+    public static void write(File file, JSONObject game) throws IOException {
+        write(file, game, false);
+    }
+
+    /**
+     * Writes a game in the binary format to a temporary file next to it, which then replaces the file in one step.
+     * A crash while writing leaves the previous save as it was.
+     *
+     * @param sync Forces the bytes to the disk before the file is replaced, so that the save survives a power loss.
+     */
+    public static void write(File file, JSONObject game, boolean sync) throws IOException {
+        long start = System.nanoTime();
+        Path target = file.toPath();
+        Path temporary = target.resolveSibling(file.getName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(encode(game));
+            while (buffer.hasRemaining()) channel.write(buffer);
+            if (sync) channel.force(true);
+        }
+
+        try {
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        saves.recordSince(start);
+    }
+
+    static boolean isBinary(byte[] bytes) {
+        return bytes.length >= 4 && ((bytes[0] & 0xFF) << 24 | (bytes[1] & 0xFF) << 16 | (bytes[2] & 0xFF) << 8 | bytes[3] & 0xFF) == MAGIC;
+    }
+
+    static byte[] encode(JSONObject game) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        boolean progress = game.containsKey("nodes");
+        int flags = 0;
+        if (game.containsKey("opponent")) flags |= FLAG_OPPONENT;
+        if ("computer".equals(game.get("opponent"))) flags |= FLAG_COMPUTER;
+        if (game.containsKey("mode")) flags |= FLAG_MODE;
+        if ("timed".equals(game.get("mode"))) flags |= FLAG_TIMED;
+        if (progress) flags |= FLAG_PROGRESS;
+        if (Boolean.TRUE.equals(game.get("state"))) flags |= FLAG_FINISHED;
+        if (Boolean.TRUE.equals(game.get("computerToMove"))) flags |= FLAG_COMPUTER_TO_MOVE;
+
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeByte(flags);
+        out.writeByte(getInt(game, "size", 3));
+        out.writeByte(getInt(game, "winLength", 3));
+        out.writeByte(indexOf(STATES, game.get("winner")));
+        out.writeByte(indexOf(STATES, game.get("move")));
+
+        if (progress) {
+            JSONArray nodes = (JSONArray) game.get("nodes");
+            byte[] packed = new byte[(nodes.size() + 3) / 4];
+            for (int i = 0; i < nodes.size(); i++) packed[i >> 2] |= indexOf(NODES, nodes.get(i)) << (i & 3) * 2;
+            out.write(packed);
+
+            writeVarInt(out, getInt(game, "ElapsedTime", 0));
+            writeVarInt(out, toDeciseconds(game.get("LastMoveTime")));
+            writeTimes(out, (JSONArray) game.get("timeX"));
+            writeTimes(out, (JSONArray) game.get("timeO"));
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray(), 0, bytes.size());
+        out.writeInt((int) crc.getValue());
+        return bytes.toByteArray();
+    }
+
+    static JSONObject decode(byte[] bytes) throws IOException {
+        if (bytes.length < 4 + 6 + 4) throw new EOFException("The game file is cut short.");
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - 4);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        in.skipBytes(bytes.length - 4);
+        if (in.readInt() != (int) crc.getValue()) throw new IOException("The game file is corrupted.");
+
+        in = new DataInputStream(new ByteArrayInputStream(bytes, 4, bytes.length - 8));
+        int version = in.readUnsignedByte();
+        if (version > VERSION) throw new IOException("The game file was written by a newer version: " + version);
+
+        int flags = in.readUnsignedByte();
+        int size = in.readUnsignedByte();
+        JSONObject game = new JSONObject();
+        if ((flags & FLAG_OPPONENT) != 0) game.put("opponent", (flags & FLAG_COMPUTER) != 0 ? "computer" : "human");
+        if ((flags & FLAG_MODE) != 0) game.put("mode", (flags & FLAG_TIMED) != 0 ? "timed" : "untimed");
+        game.put("size", (long) size);
+        game.put("winLength", (long) in.readUnsignedByte());
+        String winner = STATES[in.readUnsignedByte() % 3];
+        String move = STATES[in.readUnsignedByte() % 3];
+
+        if ((flags & FLAG_PROGRESS) != 0) {
+            byte[] packed = new byte[(size * size + 3) / 4];
+            in.readFully(packed);
+            JSONArray nodes = new JSONArray();
+            for (int i = 0; i < size * size; i++) nodes.add(NODES[(packed[i >> 2] >> (i & 3) * 2 & 3) % 3]);
+
+            game.put("nodes", nodes);
+            game.put("ElapsedTime", (long) readVarInt(in));
+            game.put("LastMoveTime", readVarInt(in) / 10.0);
+            game.put("timeX", readTimes(in));
+            game.put("timeO", readTimes(in));
+            game.put("winner", winner);
+            game.put("move", move);
+            game.put("state", (flags & FLAG_FINISHED) != 0);
+            game.put("computerToMove", (flags & FLAG_COMPUTER_TO_MOVE) != 0);
+        }
+
+        return game;
+    }
+
+    private static void writeTimes(DataOutputStream out, JSONArray times) throws IOException {
+        if (times == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+
+        writeVarInt(out, times.size());
+        for (Object time : times) writeVarInt(out, toDeciseconds(time));
+    }
+
+    private static JSONArray readTimes(InputStream in) throws IOException {
+        int count = readVarInt(in);
+        JSONArray times = new JSONArray();
+        for (int i = 0; i < count; i++) times.add(readVarInt(in) / 10.0);
+        return times;
+    }
+
+    /**
+     * Writes 7 bits per byte, lowest first, with the high bit set on every byte but the last.
+     */
+    private static void writeVarInt(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write(value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+
+        out.write(value);
+    }
+
+    private static int readVarInt(InputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.read();
+            if (b < 0) throw new EOFException("The game file is cut short.");
+
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+
+        throw new IOException("The game file is corrupted.");
+    }
+
+    private static int toDeciseconds(Object seconds) {
+        return seconds == null ? 0 : (int) Math.max(0, Math.round(Double.parseDouble(seconds.toString()) * 10));
+    }
+
+    private static int getInt(JSONObject game, String key, int defaultValue) {
+        Object value = game.get(key);
+        return value instanceof Number ? ((Number) value).intValue() : defaultValue;
+    }
+
+    private static int indexOf(String[] values, Object value) {
+        for (int i = 0; i < values.length; i++) if (values[i].equals(value)) return i;
+        return 0;
+    }
+}
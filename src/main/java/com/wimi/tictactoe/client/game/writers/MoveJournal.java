@@ -0,0 +1,180 @@
+/*
+ * Copyright 2019 Akshit Sinha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wimi.tictactoe.client.game.writers;
+
+import com.wimi.tictactoe.client.game.Structure.States;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * @Description Append only log of the moves made since a game file was last written.
+ * <p>
+ * Each move is one record of {@value #RECORD_SIZE} bytes, so saving a move costs the same on any board.
+ * The journal is replayed on top of the game file when the game is resumed, and deleted once the game file
+ * holds its moves again.
+ * </p>
+ * <pre>
+ * short  ply, the number of moves made before this one
+ * short  cell
+ * byte   player, the ordinal of its state
+ * byte   1 if the computer made the move
+ * int    deciseconds the move took
+ * short  low bits of the CRC32 of the bytes before it
+ * </pre>
+ */
+public class MoveJournal implements Closeable {
+
+    public static final int RECORD_SIZE = 12;
+
+    private final File file;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    private FileChannel channel; // Opened on the first move.
+
+    /**
+     * @param gameFile The game file the journal belongs to.
+     */
+    public MoveJournal(File gameFile) {
+        this.file = getFile(gameFile);
+    }
+
+    /**
+     * @return The journal of a game file, next to it.
+     */
+    public static File getFile(File gameFile) {
+        return new File(gameFile.getParentFile(), gameFile.getName() + ".journal");
+    }
+
+    /**
+     * Adds a move to the end of the journal.
+     */
+    public void append(Move move) throws IOException {
+        if (channel == null)
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+
+        record.clear();
+        record.putShort((short) move.getPly());
+        record.putShort((short) move.getCell());
+        record.put((byte) move.getPlayer().ordinal());
+        record.put((byte) (move.isComputer() ? 1 : 0));
+        record.putInt((int) Math.round(move.getTime() * 10));
+        record.putShort(checksum(record.array()));
+        record.flip();
+        while (record.hasRemaining()) channel.write(record);
+    }
+
+    /**
+     * Reads the moves of the journal. A record cut short or damaged by a crash ends the journal.
+     *
+     * @return The moves in the order they were made, empty if there is no journal.
+     */
+    public List<Move> read() throws IOException {
+        List<Move> moves = new ArrayList<>();
+        if (!file.exists()) return moves;
+
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        byte[] bytes = new byte[RECORD_SIZE];
+        while (buffer.remaining() >= RECORD_SIZE) {
+            buffer.get(bytes);
+            ByteBuffer in = ByteBuffer.wrap(bytes);
+            int ply = in.getShort() & 0xFFFF;
+            int cell = in.getShort() & 0xFFFF;
+            int player = in.get();
+            boolean computer = in.get() == 1;
+            int deciseconds = in.getInt();
+            if (in.getShort() != checksum(bytes) || player < 1 || player > 2 || deciseconds < 0) break;
+
+            moves.add(new Move(ply, cell, States.values()[player], computer, deciseconds / 10.0));
+        }
+
+        return moves;
+    }
+
+    /**
+     * Deletes the journal once its moves are in the game file.
+     */
+    public void delete() throws IOException {
+        close();
+        Files.deleteIfExists(file.toPath());
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel == null) return;
+
+        channel.close();
+        channel = null;
+    }
+
+    private static short checksum(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, RECORD_SIZE - 2);
+        return (short) crc.getValue();
+    }
+
+    /**
+     * A move as it is kept in the journal.
+     */
+    public static final class Move {
+
+        private final int ply;
+        private final int cell;
+        private final States player;
+        private final boolean computer;
+        private final double time;
+
+        /**
+         * @param ply      Number of moves made before this one.
+         * @param computer Did the computer make the move.
+         * @param time     Seconds the move took.
+         */
+        public Move(int ply, int cell, States player, boolean computer, double time) {
+            this.ply = ply;
+            this.cell = cell;
+            this.player = player;
+            this.computer = computer;
+            this.time = time;
+        }
+
+        public int getPly() {
+            return ply;
+        }
+
+        public int getCell() {
+            return cell;
+        }
+
+        public States getPlayer() {
+            return player;
+        }
+
+        public boolean isComputer() {
+            return computer;
+        }
+
+        public double getTime() {
+            return time;
+        }
+    }
+}
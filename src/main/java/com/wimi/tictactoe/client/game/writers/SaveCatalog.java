@@ -0,0 +1,384 @@
+/*
+ * Copyright 2019 Akshit Sinha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wimi.tictactoe.client.game.writers;
+
+import com.wimi.tictactoe.client.game.Structure.States;
+import com.wimi.tictactoe.util.Console;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.ParseException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Description Index of the saved games, so that they can be listed without opening every game file.
+ * <p>
+ * The index is kept in a file next to the saves directory. On start only the games whose file changed since the
+ * index was written are read again. Afterwards the index is updated as games are created, saved, renamed and
+ * deleted, and written shortly after on a daemon thread.
+ * </p>
+ */
+public class SaveCatalog {
+
+    private static final int MAGIC = 0x4E434349; // NCCI
+    private static final int VERSION = 1;
+    private static final long WRITE_DELAY_MILLIS = 1000; // Changes made within this time are written together.
+    private static final Comparator<Entry> ORDER = Comparator.comparingLong(Entry::getLastModified).reversed()
+            .thenComparing(Entry::getName); // The most recently played first.
+
+    private final File savesDirectory = new File(System.getenv("TEMP") + "//.tictactoe//saves//");
+    private final File indexFile = new File(System.getenv("TEMP") + "//.tictactoe//catalog.bin");
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Save catalog writer");
+        thread.setDaemon(true); // Must not keep the application alive, the index is rebuilt from the files if needed.
+        return thread;
+    });
+    private final Map<String, Entry> entries = new HashMap<>(); // Guarded by this.
+    private final List<Entry> sorted = new ArrayList<>(); // The same entries in ORDER, guarded by this.
+    private boolean writeScheduled = false; // Guarded by this.
+
+    /**
+     * Reads the index and brings it up to date with the saves directory.
+     */
+    public synchronized void init() {
+        Map<String, Entry> stored = readIndex();
+        File[] files = savesDirectory.listFiles((directory, name) -> name.endsWith(".nc"));
+        boolean changed = files == null || stored.size() != files.length;
+
+        entries.clear();
+        int read = 0;
+        if (files != null) {
+            for (File file : files) {
+                String name = getName(file);
+                Entry entry = stored.get(name);
+                if (entry == null || entry.getLastModified() != file.lastModified() || entry.getFileSize() != file.length()) {
+                    entry = readEntry(file);
+                    changed = true;
+                    read++;
+                }
+
+                entries.put(name, entry);
+            }
+        }
+
+        sorted.clear();
+        sorted.addAll(entries.values());
+        sorted.sort(ORDER);
+
+        Console.log("Catalog of " + entries.size() + " saved games is ready, read " + read + " game files.");
+        if (changed) scheduleWrite();
+    }
+
+    /**
+     * @return Every saved game, the most recently played first.
+     */
+    public synchronized List<Entry> getEntries() {
+        return new ArrayList<>(sorted); // Kept in order as it changes, so listing the games does not sort them.
+    }
+
+    /**
+     * Reads a game file again after it was created or changed.
+     */
+    public void update(File file) {
+        put(readEntry(file));
+    }
+
+    /**
+     * Updates a game after it was written, without reading it again.
+     *
+     * @param game The JSON which was written to the file.
+     */
+    public void update(File file, JSONObject game) {
+        put(new Entry(getName(file), game, file.lastModified(), file.length()));
+    }
+
+    public void remove(File file) {
+        synchronized (this) {
+            Entry entry = entries.remove(getName(file));
+            if (entry == null) return;
+
+            removeSorted(entry);
+        }
+
+        scheduleWrite();
+    }
+
+    public void rename(File file, File renamedFile) {
+        synchronized (this) {
+            Entry entry = entries.remove(getName(file));
+            if (entry == null) return;
+
+            removeSorted(entry);
+            Entry renamed = entry.renamed(getName(renamedFile), renamedFile.lastModified());
+            Entry replaced = entries.put(renamed.getName(), renamed);
+            if (replaced != null) removeSorted(replaced);
+            addSorted(renamed);
+        }
+
+        scheduleWrite();
+    }
+
+    private void put(Entry entry) {
+        synchronized (this) {
+            Entry replaced = entries.put(entry.getName(), entry);
+            if (replaced != null) removeSorted(replaced);
+            addSorted(entry);
+        }
+
+        scheduleWrite();
+    }
+
+    private void addSorted(Entry entry) {
+        int index = Collections.binarySearch(sorted, entry, ORDER);
+        sorted.add(index < 0 ? -index - 1 : index, entry);
+    }
+
+    private void removeSorted(Entry entry) {
+        int index = Collections.binarySearch(sorted, entry, ORDER);
+        if (index >= 0) sorted.remove(index);
+    }
+
+    private synchronized void scheduleWrite() {
+        if (writeScheduled) return;
+
+        writeScheduled = true;
+        executor.schedule(this::writeIndex, WRITE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return The game as it is in its file. A game file which cannot be read is listed with what is unknown left out.
+     */
+    private Entry readEntry(File file) {
+        JSONObject game = new JSONObject();
+        if (file.length() > 0) {
+            try {
+                game = GameFile.read(file);
+            } catch (IOException | ParseException e) {
+                Console.warn("Could not read the game file " + file.getName() + " for the catalog.");
+            }
+        }
+
+        return new Entry(getName(file), game, file.lastModified(), file.length());
+    }
+
+    private static String getName(File file) {
+        String name = file.getName();
+        return name.endsWith(".nc") ? name.substring(0, name.length() - 3) : name;
+    }
+
+    /**
+     * @return The games of the index file, empty if there is none or it cannot be read.
+     */
+    private Map<String, Entry> readIndex() {
+        Map<String, Entry> stored = new HashMap<>();
+        if (!indexFile.exists()) return stored;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile.toPath())))) {
+            if (in.readInt() != MAGIC || in.readUnsignedByte() != VERSION) throw new IOException("Unknown catalog format.");
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                Entry entry = Entry.read(in);
+                stored.put(entry.getName(), entry);
+            }
+        } catch (IOException e) {
+            Console.warn("Could not read the catalog of saved games, it is built again.");
+            stored.clear();
+        }
+
+        return stored;
+    }
+
+    /**
+     * Writes the index to a temporary file, which then replaces the index file in one step.
+     */
+    private void writeIndex() {
+        List<Entry> snapshot;
+        synchronized (this) {
+            writeScheduled = false;
+            snapshot = new ArrayList<>(entries.values());
+        }
+
+        Path target = indexFile.toPath();
+        Path temporary = target.resolveSibling(indexFile.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(snapshot.size());
+            for (Entry entry : snapshot) entry.write(out);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        try {
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            try {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException exception) {
+                exception.printStackTrace();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * A saved game as it is listed.
+     */
+    public static final class Entry {
+
+        private static final String[] OPPONENTS = {null, "human", "computer"};
+        private static final String[] MODES = {null, "untimed", "timed"};
+
+        private final String name;
+        private final boolean finished;
+        private final States winner;
+        private final String opponent; // Null until it is chosen.
+        private final String mode; // Null until it is chosen.
+        private final int boardSize;
+        private final int winLength;
+        private final long lastModified;
+        private final long fileSize;
+
+        private Entry(String name, boolean finished, States winner, String opponent, String mode, int boardSize,
+                      int winLength, long lastModified, long fileSize) {
+            this.name = name;
+            this.finished = finished;
+            this.winner = winner;
+            this.opponent = opponent;
+            this.mode = mode;
+            this.boardSize = boardSize;
+            this.winLength = winLength;
+            this.lastModified = lastModified;
+            this.fileSize = fileSize;
+        }
+
+        private Entry(String name, JSONObject game, long lastModified, long fileSize) {
+            this(name, Boolean.TRUE.equals(game.get("state")), getWinner(game.get("winner")),
+                    (String) game.get("opponent"), (String) game.get("mode"),
+                    game.get("size") instanceof Number ? ((Number) game.get("size")).intValue() : 3,
+                    game.get("winLength") instanceof Number ? ((Number) game.get("winLength")).intValue() : 3,
+                    lastModified, fileSize);
+        }
+
+        private static States getWinner(Object winner) {
+            for (States state : States.values()) if (state.toString().equals(winner)) return state;
+            return States.NONE;
+        }
+
+        private Entry renamed(String name, long lastModified) {
+            return new Entry(name, finished, winner, opponent, mode, boardSize, winLength, lastModified, fileSize);
+        }
+
+        private static Entry read(DataInputStream in) throws IOException {
+            String name = in.readUTF();
+            int flags = in.readUnsignedByte();
+            States winner = States.values()[in.readUnsignedByte() % 3];
+            String opponent = OPPONENTS[in.readUnsignedByte() % 3];
+            String mode = MODES[in.readUnsignedByte() % 3];
+            int boardSize = in.readUnsignedByte();
+            int winLength = in.readUnsignedByte();
+            return new Entry(name, (flags & 1) != 0, winner, opponent, mode, boardSize, winLength, in.readLong(), in.readLong());
+        }
+
+        private void write(DataOutputStream out) throws IOException {
+            out.writeUTF(name);
+            out.writeByte(finished ? 1 : 0);
+            out.writeByte(winner.ordinal());
+            out.writeByte(indexOf(OPPONENTS, opponent));
+            out.writeByte(indexOf(MODES, mode));
+            out.writeByte(boardSize);
+            out.writeByte(winLength);
+            out.writeLong(lastModified);
+            out.writeLong(fileSize);
+        }
+
+        private static int indexOf(String[] values, String value) {
+            for (int i = 1; i < values.length; i++) if (values[i].equals(value)) return i;
+            return 0;
+        }
+
+        /**
+         * @return The name of the game, which is the name of its file without the extension.
+         */
+        public String getName() {
+            return name;
+        }
+
+        public boolean isFinished() {
+            return finished;
+        }
+
+        public States getWinner() {
+            return winner;
+        }
+
+        /**
+         * @return "human" or "computer", null if it is not chosen yet.
+         */
+        public String getOpponent() {
+            return opponent;
+        }
+
+        /**
+         * @return "timed" or "untimed", null if it is not chosen yet.
+         */
+        public String getMode() {
+            return mode;
+        }
+
+        public int getBoardSize() {
+            return boardSize;
+        }
+
+        public int getWinLength() {
+            return winLength;
+        }
+
+        /**
+         * @return When the game file was last written, in milliseconds since the epoch.
+         */
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * @return Size of the game file in bytes.
+         */
+        public long getFileSize() {
+            return fileSize;
+        }
+    }
+}
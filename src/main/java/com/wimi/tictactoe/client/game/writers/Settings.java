@@ -0,0 +1,122 @@
+/*
+ * Copyright 2019 Akshit Sinha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wimi.tictactoe.client.game.writers;
+
+import com.wimi.tictactoe.client.game.algo.MonteCarlo;
+import com.wimi.tictactoe.util.Levels;
+import com.wimi.tictactoe.util.Themes;
+import org.json.simple.JSONObject;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @Description The settings of the game as they were when read or last changed. It never changes, a change of a
+ * setting makes a new one, so it can be read from any thread.
+ */
+public final class Settings {
+
+    private final Map<Object, Object> values;
+    private final Themes theme;
+    private final boolean sfx;
+    private final long maxTime;
+    private final Levels difficulty;
+    private final int playouts;
+
+    /**
+     * @param object The JSON of the settings file.
+     */
+    @SuppressWarnings("unchecked")
+    Settings(JSONObject object) {
+        Map<Object, Object> copy = new HashMap<>();
+        for (Map.Entry<Object, Object> entry : ((Map<Object, Object>) object).entrySet())
+            copy.put(entry.getKey(), normalize(entry.getValue()));
+        values = Collections.unmodifiableMap(copy);
+
+        theme = parse(Themes.class, values.get("theme"));
+        sfx = Boolean.TRUE.equals(values.get("SFX"));
+        maxTime = values.get("maxTime") instanceof Number ? ((Number) values.get("maxTime")).longValue() : 5;
+        difficulty = parse(Levels.class, values.get("difficulty"));
+        playouts = values.get("playouts") instanceof Number ? ((Number) values.get("playouts")).intValue() : MonteCarlo.DEFAULT_PLAYOUTS;
+    }
+
+    /**
+     * Whole numbers are read back from the JSON as longs, so they are kept as longs in memory too.
+     */
+    static Object normalize(Object value) {
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) return ((Number) value).longValue();
+        return value;
+    }
+
+    private static <E extends Enum<E>> E parse(Class<E> type, Object value) {
+        for (E constant : type.getEnumConstants()) if (constant.toString().equals(value)) return constant;
+        return null;
+    }
+
+    /**
+     * @return The settings as a JSON object, to write them.
+     */
+    @SuppressWarnings("unchecked")
+    JSONObject toJSON() {
+        JSONObject object = new JSONObject();
+        object.putAll(values);
+        return object;
+    }
+
+    public Object get(Object key) {
+        return values.get(key);
+    }
+
+    public boolean containsKey(Object key) {
+        return values.containsKey(key);
+    }
+
+    /**
+     * @return The preferred theme by the user, null if it is unknown.
+     */
+    public Themes getTheme() {
+        return theme;
+    }
+
+    /**
+     * @return Is SFX is turned on.
+     */
+    public boolean isSFX() {
+        return sfx;
+    }
+
+    /**
+     * @return Seconds allowed for a move when playing on Timed mode.
+     */
+    public long getMaxTime() {
+        return maxTime;
+    }
+
+    /**
+     * @return Difficulty when playing against the computer, null if it is unknown.
+     */
+    public Levels getDifficulty() {
+        return difficulty;
+    }
+
+    /**
+     * @return Number of playouts per move of the computer in MONTE_CARLO difficulty.
+     */
+    public int getPlayouts() {
+        return playouts;
+    }
+}
@@ -16,80 +16,230 @@
 
 package com.wimi.tictactoe.client.game.writers;
 
+import com.wimi.tictactoe.client.game.algo.MonteCarlo;
 import com.wimi.tictactoe.util.Console;
+import com.wimi.tictactoe.util.Counter;
 import com.wimi.tictactoe.util.Levels;
+import com.wimi.tictactoe.util.Metrics;
 import com.wimi.tictactoe.util.Themes;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
 
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @Description Initializes the game settings/ options on JSON.
+ * <p>
+ * The settings are read once and kept in memory as a {@link Settings} snapshot, so reading a setting never touches
+ * the disk. Changes are written shortly after they are made, several changes in a row are written once.
+ * The settings file is watched, so changes made to it outside the game are picked up.
+ * </p>
  */
 @SuppressWarnings("unchecked")
 public class SettingsConfigurator {
 
+    private static final long WRITE_DELAY_MILLIS = 500; // Changes made within this time are written together.
+    private static final Counter reads = Metrics.counter("settings.reads");
+
     private final String path = System.getenv("TEMP") + "//.tictactoe//options.json";
     private final File optionsAssets = new File(path);
     private final JSONParser jsonParser = new JSONParser();
-    private JSONObject jsonObject = new JSONObject();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Settings writer");
+        thread.setDaemon(true); // Must not keep the application alive, pending changes are flushed on exit.
+        return thread;
+    });
+    private volatile Settings settings = new Settings(new JSONObject());
+    private boolean writeScheduled = false; // Guarded by this.
+    private String lastWritten; // The JSON last written by the game, guarded by this.
 
     public void init() {
+        JSONObject jsonObject = new JSONObject();
         if (optionsAssets.exists()) {
             Console.log("Initialization of options.json already done.");
 
-            try (FileReader reader = new FileReader(optionsAssets)) {
+            try {
                 Console.log("Getting the already written JSON elements.");
-                jsonObject = (JSONObject) jsonParser.parse(reader);
+                jsonObject = readFile();
             } catch (IOException | ParseException e) {
                 e.printStackTrace();
             }
+
+            settings = new Settings(jsonObject);
+            if (!jsonObject.containsKey("playouts")) { // Settings written before Monte Carlo difficulty existed.
+                putJsonKey("playouts", MonteCarlo.DEFAULT_PLAYOUTS);
+                flush();
+                Console.log("Added the playouts JSON key to the settings file.");
+            }
         } else {
-            try {
-                boolean creation = optionsAssets.createNewFile();
-                if (creation) Console.log("Created the settings file.");
-                else Console.log("Could not create the settings file.");
-
-                FileWriter fileWriter = new FileWriter(optionsAssets);
-                jsonObject.put("theme", Themes.DARK.toString()); // Dark Theme by default.
-                jsonObject.put("SFX", true); // SFX on by default.
-                jsonObject.put("maxTime", 5); // Max time allowed when playing on Timed mode.
-                jsonObject.put("difficulty", Levels.INTERMEDIATE.toString()); // Difficulty when playing against computer.
-                fileWriter.write(jsonObject.toJSONString());
-                fileWriter.close();
-
-                FileReader reader = new FileReader(optionsAssets);
-                jsonObject = (JSONObject) jsonParser.parse(reader);
-                reader.close();
-                Console.log("Written default JSON values on file.");
-            } catch (IOException | ParseException e) {
-                e.printStackTrace();
+            jsonObject.put("theme", Themes.DARK.toString()); // Dark Theme by default.
+            jsonObject.put("SFX", true); // SFX on by default.
+            jsonObject.put("maxTime", 5); // Max time allowed when playing on Timed mode.
+            jsonObject.put("difficulty", Levels.INTERMEDIATE.toString()); // Difficulty when playing against computer.
+            jsonObject.put("playouts", MonteCarlo.DEFAULT_PLAYOUTS); // Strength of the computer in Monte Carlo difficulty.
+            settings = new Settings(jsonObject);
+
+            synchronized (this) {
+                write();
             }
+            Console.log("Written default JSON values on file.");
         }
+
+        watch();
     }
 
+    /**
+     * Changes a setting. It is written to the settings file shortly after.
+     */
     public void setJsonKey(Object key, Object value) {
-        try (FileWriter fileWriter = new FileWriter(optionsAssets)) {
-            jsonObject.replace(key, value);
-            fileWriter.write(jsonObject.toJSONString());
+        synchronized (this) {
+            JSONObject jsonObject = settings.toJSON();
+            jsonObject.replace(key, Settings.normalize(value));
+            settings = new Settings(jsonObject);
+        }
+
+        scheduleWrite();
+    }
+
+    /**
+     * Adds or changes a setting. It is written to the settings file shortly after.
+     */
+    private void putJsonKey(Object key, Object value) {
+        synchronized (this) {
+            JSONObject jsonObject = settings.toJSON();
+            jsonObject.put(key, Settings.normalize(value));
+            settings = new Settings(jsonObject);
+        }
+
+        scheduleWrite();
+    }
+
+    /**
+     * Writes the changes which are not written yet. Called when the application exits.
+     */
+    public synchronized void flush() {
+        if (writeScheduled) write();
+    }
+
+    private synchronized void scheduleWrite() {
+        if (writeScheduled) return;
+
+        writeScheduled = true;
+        executor.schedule(this::flush, WRITE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes the settings to a temporary file, which then replaces the settings file in one step.
+     */
+    private void write() {
+        writeScheduled = false;
+        String json = settings.toJSON().toJSONString();
+
+        try {
+            Path target = optionsAssets.toPath();
+            Path temporary = target.resolveSibling(optionsAssets.getName() + ".tmp");
+            Files.write(temporary, json.getBytes(StandardCharsets.UTF_8));
+            try {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            lastWritten = json;
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
-    public Object getJsonKey(Object key) {
-        try (FileReader reader = new FileReader(optionsAssets)) {
-            jsonObject = (JSONObject) jsonParser.parse(reader);
+    /**
+     * @return The settings as they are now, counted as a read of the settings.
+     */
+    private Settings read() {
+        reads.increment();
+        return settings;
+    }
+
+    private JSONObject readFile() throws IOException, ParseException {
+        return (JSONObject) jsonParser.parse(new String(Files.readAllBytes(optionsAssets.toPath()), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads the settings file again when it is changed outside the game.
+     */
+    private synchronized void reload() {
+        if (writeScheduled || !optionsAssets.exists()) return; // Changes made in the game are written over it.
+
+        try {
+            String json = new String(Files.readAllBytes(optionsAssets.toPath()), StandardCharsets.UTF_8);
+            if (json.equals(lastWritten)) return; // Written by the game itself.
+
+            Object parsed = jsonParser.parse(json);
+            if (!(parsed instanceof JSONObject)) return; // Caught while it is being written.
+
+            settings = new Settings((JSONObject) parsed);
+            lastWritten = json;
+            Console.log("Reloaded the settings file as it was changed.");
         } catch (IOException | ParseException e) {
             e.printStackTrace();
         }
+    }
+
+    /**
+     * Watches the directory of the settings file on a daemon thread.
+     */
+    private void watch() {
+        Path directory = optionsAssets.getAbsoluteFile().toPath().getParent();
+        WatchService watchService;
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        Thread thread = new Thread(() -> {
+            try {
+                while (true) {
+                    WatchKey key = watchService.take();
+                    for (WatchEvent<?> event : key.pollEvents())
+                        if (optionsAssets.getName().equals(String.valueOf(event.context()))) reload();
+
+                    if (!key.reset()) return; // The directory is gone.
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                Console.log("Stopped watching the settings file.");
+            }
+        }, "Settings watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return The settings as they are now. The snapshot does not change afterwards.
+     */
+    public Settings getSettings() {
+        return read();
+    }
 
-        return jsonObject.get(key);
+    public Object getJsonKey(Object key) {
+        return read().get(key);
     }
 
     /**
@@ -98,28 +248,14 @@ public class SettingsConfigurator {
      * @param key The key value to check for.
      */
     public boolean containsKey(Object key) {
-        try (FileReader reader = new FileReader(optionsAssets)) {
-            jsonObject = (JSONObject) jsonParser.parse(reader);
-        } catch (IOException | ParseException e) {
-            e.printStackTrace();
-        }
-
-        return jsonObject.containsKey(key);
+        return read().containsKey(key);
     }
 
     /**
      * @return The preferred theme by the user.
      */
     public Themes getTheme() {
-        try (FileReader reader = new FileReader(optionsAssets)) {
-            jsonObject = (JSONObject) jsonParser.parse(reader);
-            if (jsonObject.get("theme").equals(Themes.DARK.toString())) return Themes.DARK;
-            else if (jsonObject.get("theme").equals(Themes.LIGHT.toString())) return Themes.LIGHT;
-        } catch (IOException | ParseException e) {
-            e.printStackTrace();
-        }
-
-        return null;
+        return read().getTheme();
     }
 
     /**
@@ -127,28 +263,20 @@ public class SettingsConfigurator {
      * Used when playing against the computer.
      */
     public Levels getDifficulty() {
-        try (FileReader reader = new FileReader(optionsAssets)) {
-            jsonObject = (JSONObject) jsonParser.parse(reader);
-            if (jsonObject.get("difficulty").equals(Levels.EASY.toString())) return Levels.EASY;
-            else if (jsonObject.get("difficulty").equals(Levels.INTERMEDIATE.toString())) return Levels.INTERMEDIATE;
-            else if (jsonObject.get("difficulty").equals(Levels.IMPOSSIBLE.toString())) return Levels.IMPOSSIBLE;
-        } catch (IOException | ParseException e) {
-            e.printStackTrace();
-        }
+        return read().getDifficulty();
+    }
 
-        return null;
+    /**
+     * @return Number of playouts per move of the computer in MONTE_CARLO difficulty.
+     */
+    public int getPlayouts() {
+        return read().getPlayouts();
     }
 
     /**
      * @return Is SFX is turned on.
      */
     public boolean getSFX() {
-        try (FileReader reader = new FileReader(optionsAssets)) {
-            jsonObject = (JSONObject) jsonParser.parse(reader);
-        } catch (IOException | ParseException e) {
-            e.printStackTrace();
-        }
-
-        return jsonObject.get("SFX").equals(true);
+        return read().isSFX();
     }
-}
\ No newline at end of file
+}
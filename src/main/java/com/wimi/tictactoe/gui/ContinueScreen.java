@@ -20,11 +20,17 @@ import com.wimi.tictactoe.App;
 import com.wimi.tictactoe.builders.ButtonBuilder;
 import com.wimi.tictactoe.builders.TextBuilder;
 import com.wimi.tictactoe.client.NoughtsAndCrosses;
+import com.wimi.tictactoe.client.game.Structure;
 import com.wimi.tictactoe.client.game.mechanics.AudioEngine;
 import com.wimi.tictactoe.client.game.mechanics.GameEngine;
 import com.wimi.tictactoe.client.game.writers.GameCreator;
+import com.wimi.tictactoe.client.game.writers.MoveJournal;
+import com.wimi.tictactoe.client.game.writers.SaveCatalog;
 import com.wimi.tictactoe.util.Console;
 import javafx.beans.value.ObservableValue;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -42,7 +48,6 @@ import javafx.scene.text.Text;
 import javafx.stage.Stage;
 
 import java.io.File;
-import java.util.ArrayList;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -53,19 +58,19 @@ import java.util.concurrent.TimeUnit;
 public class ContinueScreen {
 
     private final String directory = System.getenv("TEMP") + "\\.tictactoe\\saves\\";
-    private final ArrayList<ContextMenu> contextList = new ArrayList<>();
-    private final ArrayList<Button> gameButtonsList = new ArrayList<>();
-    private final ArrayList<MenuItem> menuJoinsList = new ArrayList<>();
-    private final ArrayList<MenuItem> menuRenameList = new ArrayList<>();
-    private final ArrayList<MenuItem> menuDeleteList = new ArrayList<>();
     private final ScheduledExecutorService service = Executors.newSingleThreadScheduledExecutor();
-    private final VBox scrollVBox = new VBox(5);
+    private final ObservableList<SaveCatalog.Entry> games = FXCollections.observableArrayList(); // Every saved game.
+    private final FilteredList<SaveCatalog.Entry> filteredGames = new FilteredList<>(games); // The games which are shown.
+    private final ListView<SaveCatalog.Entry> gameList = new ListView<>(filteredGames);
+    private final TextField searchField = new TextField();
+    private final ComboBox<String> winnerFilter = new ComboBox<>();
+    private final ComboBox<String> modeFilter = new ComboBox<>();
+    private final ComboBox<String> opponentFilter = new ComboBox<>();
     private final Stage popupStage = new Stage();
     private final Pane popupRoot = new Pane();
     private final Scene popupScene = new Scene(popupRoot, 500, 300);
     private final BorderPane root = new BorderPane();
     private final Scene scene = new Scene(root, 1366, 768);
-    private File[] currentFiles;
 
     public ContinueScreen() {
         refreshExistingGames(); // Get the existing games in the saves directory.
@@ -96,11 +101,8 @@ public class ContinueScreen {
                 .setPrefWidth(250)
                 .setStyle("-jfx-button-type: RAISED; -fx-background-color: gold; -fx-text-fill: blue;")
                 .onMouseClick(event -> {
-                    if (currentFiles.length == 0) Console.log("No game files to delete.");
-                    for (File currentFile : currentFiles) {
-                        if (currentFile.getAbsolutePath().endsWith(".nc"))
-                            deleteGameFile(currentFile);
-                    }
+                    if (games.isEmpty()) Console.log("No game files to delete.");
+                    for (SaveCatalog.Entry entry : games) deleteGameFile(getGameFile(entry.getName()));
 
                     refreshExistingGames();
                 })
@@ -111,13 +113,26 @@ public class ContinueScreen {
                 .setFont(Font.font("Arial", FontPosture.ITALIC, 36))
                 .build();
 
-        ScrollPane scrollPane = new ScrollPane(scrollVBox);
-        scrollPane.setPannable(true);
-        scrollPane.setMaxSize(600, 400);
-        scrollPane.setVbarPolicy(ScrollPane.ScrollBarPolicy.ALWAYS);
-        scrollPane.setHbarPolicy(ScrollPane.ScrollBarPolicy.NEVER);
-        scrollPane.setVmax(Integer.MAX_VALUE);
-        root.setCenter(scrollPane);
+        // Only the rows which are visible get a cell, the cells are reused as the list is scrolled.
+        gameList.setCellFactory(listView -> new GameCell());
+        gameList.setFixedCellSize(48);
+        gameList.setPlaceholder(new Label("No saved games found."));
+        gameList.setMaxSize(600, 400);
+
+        searchField.setPromptText("Search by name");
+        searchField.textProperty().addListener((observable, oldValue, newValue) -> updateFilter());
+        setupFilter(winnerFilter, "Any result", "X won", "O won", "Draw", "Unfinished");
+        setupFilter(modeFilter, "Any mode", "Timed", "Untimed");
+        setupFilter(opponentFilter, "Any opponent", "Human", "Computer");
+
+        HBox filters = new HBox(10);
+        filters.getChildren().addAll(searchField, winnerFilter, modeFilter, opponentFilter);
+        filters.setAlignment(Pos.CENTER);
+
+        VBox listWrapper = new VBox(10);
+        listWrapper.getChildren().addAll(filters, gameList);
+        listWrapper.setAlignment(Pos.TOP_CENTER);
+        root.setCenter(listWrapper);
 
         HBox hBox = new HBox(25);
         hBox.getChildren().addAll(goBack, deleteAll);
@@ -138,57 +153,69 @@ public class ContinueScreen {
     }
 
     private void refreshExistingGames() {
-        currentFiles = new File(directory).listFiles();
-
-        gameButtonsList.clear();
-        menuJoinsList.clear();
-        menuRenameList.clear();
-        menuDeleteList.clear();
-        contextList.clear();
-        scrollVBox.getChildren().clear();
-
-        Console.log("Scanning for existing game files");
-
-        if (currentFiles != null) {
-            for (int i = 0; i < currentFiles.length; i++) {
-                if (currentFiles[i].getAbsolutePath().endsWith(".nc")) {
-                    Console.log("Found a game file named " + currentFiles[i].getName());
-                    int finalI = i;
-
-                    menuJoinsList.add(new MenuItem("Join game"));
-                    menuRenameList.add(new MenuItem("Rename game"));
-                    menuDeleteList.add(new MenuItem("Delete game"));
-                    contextList.add(new ContextMenu());
-
-                    menuJoinsList.get(i).setOnAction(event -> {
-                        GameEngine gameEngine = new GameEngine(currentFiles[finalI]);
-                        App.getStage().setScene(gameEngine.getScene());
-                    });
-                    menuRenameList.get(i).setOnAction(event -> showRenameConfirmationPopup(currentFiles[finalI]));
-                    menuDeleteList.get(i).setOnAction(event -> showDeleteConfirmationPopup(currentFiles[finalI]));
-
-                    contextList.get(i).getItems().addAll(menuJoinsList.get(i), menuRenameList.get(i), menuDeleteList.get(i));
-                    gameButtonsList.add(new ButtonBuilder(currentFiles[i].getName().substring(0, currentFiles[i].getName().length() - 3))
-                            .setContextMenu(contextList.get(finalI))
-                            .setPrefHeight(40)
-                            .setPrefWidth(580)
-                            .setFill(128, 203, 196)
-                            .onMouseClick(mouseEvent -> {
-                                if (mouseEvent.getButton().equals(MouseButton.PRIMARY)) {
-                                    GameEngine gameEngine = new GameEngine(currentFiles[finalI]);
-                                    App.getStage().setScene(gameEngine.getScene());
-                                }
-                            })
-                            .build());
-                } else
-                    Console.log("Warning: Found a strange file which does not have the usual game file extension at the saves directory.");
-            }
+        games.setAll(NoughtsAndCrosses.getCatalog().getEntries());
+
+        Console.log("Listing " + games.size() + " saved games from the catalog.");
+        if (games.isEmpty()) Console.log("No game files found at the given path at " + directory);
+    }
+
+    /**
+     * Fills a filter with its choices, the first one lets every game through.
+     */
+    private void setupFilter(ComboBox<String> filter, String... choices) {
+        filter.getItems().addAll(choices);
+        filter.setValue(choices[0]);
+        filter.setOnAction(event -> updateFilter());
+    }
 
-            if (currentFiles.length == 0) Console.log("No game files found at the given path at " + directory);
-            else scrollVBox.getChildren().addAll(this.gameButtonsList);
+    /**
+     * Shows only the games which match the search and every filter.
+     */
+    private void updateFilter() {
+        String search = searchField.getText() == null ? "" : searchField.getText().trim().toLowerCase();
+        String winner = winnerFilter.getValue();
+        String mode = modeFilter.getValue();
+        String opponent = opponentFilter.getValue();
+
+        filteredGames.setPredicate(entry -> entry.getName().toLowerCase().contains(search)
+                && matchesWinner(entry, winner)
+                && (mode == null || mode.startsWith("Any") || mode.equalsIgnoreCase(entry.getMode()))
+                && (opponent == null || opponent.startsWith("Any") || opponent.equalsIgnoreCase(entry.getOpponent())));
+    }
+
+    private boolean matchesWinner(SaveCatalog.Entry entry, String winner) {
+        if (winner == null) return true;
+
+        switch (winner) {
+            case "X won":
+                return entry.isFinished() && entry.getWinner() == Structure.States.X;
+            case "O won":
+                return entry.isFinished() && entry.getWinner() == Structure.States.O;
+            case "Draw":
+                return entry.isFinished() && entry.getWinner() == Structure.States.NONE;
+            case "Unfinished":
+                return !entry.isFinished();
+            default:
+                return true;
         }
     }
 
+    /**
+     * @return A short description of a game shown next to its name.
+     */
+    private String describe(SaveCatalog.Entry entry) {
+        String result = !entry.isFinished() ? "In progress"
+                : entry.getWinner() == Structure.States.NONE ? "Draw" : entry.getWinner() + " won";
+        String board = entry.getBoardSize() + "x" + entry.getBoardSize();
+        if (entry.getOpponent() == null || entry.getMode() == null) return result + " | " + board;
+
+        return result + " | " + board + " | " + entry.getOpponent() + " | " + entry.getMode();
+    }
+
+    private File getGameFile(String name) {
+        return new File(directory + name + ".nc");
+    }
+
     /**
      * Shows the delete confirmation popup.
      *
@@ -281,6 +308,10 @@ public class ContinueScreen {
      * @param file The file to delete.
      */
     private void deleteGameFile(File file) {
+        File journal = MoveJournal.getFile(file);
+        if (journal.exists() && !journal.delete()) Console.log("Could not delete the journal of " + file.getName());
+
+        NoughtsAndCrosses.getCatalog().remove(file);
         if (file.exists()) {
             boolean delete = file.delete();
 
@@ -304,7 +335,14 @@ public class ContinueScreen {
         if (file.exists() && !renamedFile.exists()) {
             Console.log("Renaming " + file.getName());
             boolean rename = file.renameTo(renamedFile);
-            if (rename) Console.log("File renamed to " + renamedFileName);
+            if (rename) {
+                NoughtsAndCrosses.getCatalog().rename(file, renamedFile);
+                Console.log("File renamed to " + renamedFileName);
+            }
+
+            File journal = MoveJournal.getFile(file);
+            if (rename && journal.exists() && !journal.renameTo(MoveJournal.getFile(renamedFile)))
+                Console.log("Could not rename the journal of " + file.getName());
         } else if (!file.exists())
             Console.log("No such game file exists with the given name");
         else if (renamedFile.exists())
@@ -322,6 +360,47 @@ public class ContinueScreen {
         }
     }
 
+    /**
+     * A row of the list of saved games. Its button and menu are made once and show whichever game the row is reused for.
+     */
+    private class GameCell extends ListCell<SaveCatalog.Entry> {
+
+        private final MenuItem join = new MenuItem("Join game");
+        private final MenuItem rename = new MenuItem("Rename game");
+        private final MenuItem delete = new MenuItem("Delete game");
+        private final Button button = new ButtonBuilder(" ")
+                .setContextMenu(new ContextMenu(join, rename, delete))
+                .setPrefHeight(40)
+                .setPrefWidth(580)
+                .setFill(128, 203, 196)
+                .onMouseClick(mouseEvent -> {
+                    if (mouseEvent.getButton().equals(MouseButton.PRIMARY)) joinGame();
+                })
+                .build();
+
+        GameCell() {
+            join.setOnAction(event -> joinGame());
+            rename.setOnAction(event -> showRenameConfirmationPopup(getGameFile(getItem().getName())));
+            delete.setOnAction(event -> showDeleteConfirmationPopup(getGameFile(getItem().getName())));
+        }
+
+        @Override
+        protected void updateItem(SaveCatalog.Entry entry, boolean empty) {
+            super.updateItem(entry, empty);
+
+            if (empty || entry == null) setGraphic(null);
+            else {
+                button.setText(entry.getName() + "    " + describe(entry));
+                setGraphic(button);
+            }
+        }
+
+        private void joinGame() {
+            GameEngine gameEngine = new GameEngine(getGameFile(getItem().getName()));
+            App.getStage().setScene(gameEngine.getScene());
+        }
+    }
+
     public Scene getScene() {
         return scene;
     }
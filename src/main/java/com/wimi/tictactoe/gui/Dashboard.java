@@ -21,7 +21,9 @@ import com.wimi.tictactoe.builders.ButtonBuilder;
 import com.wimi.tictactoe.builders.TextBuilder;
 import com.wimi.tictactoe.client.NoughtsAndCrosses;
 import com.wimi.tictactoe.client.game.Structure;
+import com.wimi.tictactoe.client.game.algo.Rules;
 import com.wimi.tictactoe.client.game.mechanics.AudioEngine;
+import com.wimi.tictactoe.client.game.writers.GameFile;
 import com.wimi.tictactoe.util.Console;
 import eu.hansolo.tilesfx.Tile;
 import eu.hansolo.tilesfx.TileBuilder;
@@ -44,11 +46,9 @@ import javafx.scene.text.FontWeight;
 import javafx.scene.text.Text;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
 
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 
 /**
@@ -64,8 +64,8 @@ public class Dashboard extends Structure {
         JSONObject jsonObject = new JSONObject();
         JSONArray jsonArray = new JSONArray();
 
-        try (FileReader reader = new FileReader(file)) {
-            jsonObject = (JSONObject) new JSONParser().parse(reader);
+        try {
+            jsonObject = GameFile.read(file);
             jsonArray = (JSONArray) jsonObject.get("nodes");
             Console.log("Game status: " + jsonObject.get("nodes"));
         } catch (IOException | ParseException e) {
@@ -172,24 +172,27 @@ public class Dashboard extends Structure {
                 .padding(new Insets(10))
                 .build();
 
+        Rules rules = getRules(jsonObject);
+        double cellSize = Math.min(120, 480.0 / rules.getSize()); // Larger boards get smaller cells to fit the tile.
+
         GridPane gridPane = new GridPane();
         gridPane.setPadding(new Insets(30, 0, 0, 120));
-        gridPane.setHgap(15);
-        gridPane.setVgap(15);
+        gridPane.setHgap(45.0 / rules.getSize());
+        gridPane.setVgap(45.0 / rules.getSize());
 
-        for (int i = 0; i < 9; i++) {
-            gridPane.addColumn(i % 3, new ButtonBuilder(jsonArray.get(i).toString())
-                    .setFont(Font.font("Arial", FontWeight.BOLD, 24))
-                    .setSize(120, 120)
+        for (int i = 0; i < rules.getCells(); i++) {
+            gridPane.add(new ButtonBuilder(jsonArray.get(i).toString())
+                    .setFont(Font.font("Arial", FontWeight.BOLD, Math.max(8, cellSize * 0.2)))
+                    .setSize(cellSize, cellSize)
                     .setDisabled(true)
                     .setStyle("-jfx-button-type: RAISED; -fx-background-color: gold; -fx-text-fill: blue;")
-                    .build());
+                    .build(), i % rules.getSize(), i / rules.getSize());
         }
 
         if (!jsonObject.get("winner").equals("NONE")) {
-            int[] winningCells = new int[3];
-            if (checkForWin(jsonArray, winningCells))
-                for (int i = 0; i < 3; i++) gridPane.getChildren().get(winningCells[i]).setOpacity(1);
+            int[] winningCells = new int[rules.getWinLength()];
+            if (checkForWin(jsonArray, rules, winningCells))
+                for (int winningCell : winningCells) gridPane.getChildren().get(winningCell).setOpacity(1);
         }
 
         root.setPrefRows(2);
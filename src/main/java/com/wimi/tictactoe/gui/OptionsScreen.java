@@ -23,6 +23,7 @@ import com.wimi.tictactoe.builders.ButtonBuilder;
 import com.wimi.tictactoe.builders.SliderBuilder;
 import com.wimi.tictactoe.builders.TextBuilder;
 import com.wimi.tictactoe.client.NoughtsAndCrosses;
+import com.wimi.tictactoe.client.game.algo.MonteCarlo;
 import com.wimi.tictactoe.client.game.mechanics.AudioEngine;
 import com.wimi.tictactoe.util.Console;
 import com.wimi.tictactoe.util.Levels;
@@ -73,15 +74,15 @@ public class OptionsScreen {
                 .build();
         theme.setPrefWidth(50);
         theme.setOnMouseClicked(event -> {
-            Object THEME = NoughtsAndCrosses.getWriter().getJsonKey("theme");
-            if (THEME.equals(Themes.LIGHT.toString())) { // Switch to Dark. (true)
+            Themes THEME = NoughtsAndCrosses.getWriter().getTheme();
+            if (THEME == Themes.LIGHT) { // Switch to Dark. (true)
                 NoughtsAndCrosses.getWriter().setJsonKey("theme", Themes.DARK.toString());
                 theme.setSelected(true);
-                Console.log("Set theme JSON value to " + NoughtsAndCrosses.getWriter().getJsonKey("theme"));
-            } else if (THEME.equals(Themes.DARK.toString())) { // Switch to Light. (false)
+                Console.log("Set theme JSON value to " + NoughtsAndCrosses.getWriter().getTheme());
+            } else if (THEME == Themes.DARK) { // Switch to Light. (false)
                 NoughtsAndCrosses.getWriter().setJsonKey("theme", Themes.LIGHT.toString());
                 theme.setSelected(false);
-                Console.log("Set theme JSON value to " + NoughtsAndCrosses.getWriter().getJsonKey("theme"));
+                Console.log("Set theme JSON value to " + NoughtsAndCrosses.getWriter().getTheme());
             } else
                 Console.log("Error during changing theme JSON value. Current value: " + NoughtsAndCrosses.getWriter().getJsonKey("theme"));
 
@@ -91,9 +92,8 @@ public class OptionsScreen {
             NoughtsAndCrosses.setSceneBackground(App.getRoot());
         });
 
-        if (NoughtsAndCrosses.getWriter().getJsonKey("theme").equals(Themes.DARK.toString())) theme.setSelected(true);
-        else if (NoughtsAndCrosses.getWriter().getJsonKey("theme").equals(Themes.LIGHT.toString()))
-            theme.setSelected(false);
+        if (NoughtsAndCrosses.getWriter().getTheme() == Themes.DARK) theme.setSelected(true);
+        else if (NoughtsAndCrosses.getWriter().getTheme() == Themes.LIGHT) theme.setSelected(false);
 
         HBox themeHBox = new HBox();
         themeHBox.setAlignment(Pos.CENTER);
@@ -105,17 +105,10 @@ public class OptionsScreen {
                 .build();
         SFX.setPrefWidth(50);
         SFX.setOnMouseClicked(event -> {
-            Object object = NoughtsAndCrosses.getWriter().getJsonKey("SFX");
-            if (object.equals(true)) {
-                NoughtsAndCrosses.getWriter().setJsonKey("SFX", false);
-                SFX.setSelected(false);
-                Console.log("Set SFX JSON value to " + NoughtsAndCrosses.getWriter().getJsonKey("SFX"));
-            } else if (object.equals(false)) {
-                NoughtsAndCrosses.getWriter().setJsonKey("SFX", true);
-                SFX.setSelected(true);
-                Console.log("Set SFX JSON value to " + NoughtsAndCrosses.getWriter().getJsonKey("SFX"));
-            } else
-                Console.log("Error during changing SFX JSON value. Current value: " + NoughtsAndCrosses.getWriter().getJsonKey("SFX"));
+            boolean sfx = !NoughtsAndCrosses.getWriter().getSFX(); // A value which is not a boolean counts as off.
+            NoughtsAndCrosses.getWriter().setJsonKey("SFX", sfx);
+            SFX.setSelected(sfx);
+            Console.log("Set SFX JSON value to " + NoughtsAndCrosses.getWriter().getSFX());
 
             if (NoughtsAndCrosses.getWriter().getSFX()) AudioEngine.playGlassClickSound();
         });
@@ -131,7 +124,7 @@ public class OptionsScreen {
                 .setFont(Font.font("Arial", FontWeight.SEMI_BOLD, 24))
                 .setColor(Color.SLATEGRAY)
                 .build();
-        JFXSlider timeSlider = new SliderBuilder(1, 15, (long) NoughtsAndCrosses.getWriter().getJsonKey("maxTime"))
+        JFXSlider timeSlider = new SliderBuilder(1, 15, NoughtsAndCrosses.getWriter().getSettings().getMaxTime())
                 .setOrientation(Orientation.HORIZONTAL)
                 .setWidth(400)
                 .setCursor(Cursor.H_RESIZE)
@@ -139,7 +132,7 @@ public class OptionsScreen {
                 .build();
         timeSlider.setOnMouseReleased(event -> {
             NoughtsAndCrosses.getWriter().setJsonKey("maxTime", (int) Math.round(timeSlider.getValue()));
-            Console.log("Set maxTime JSON value to " + NoughtsAndCrosses.getWriter().getJsonKey("maxTime") + " seconds.");
+            Console.log("Set maxTime JSON value to " + NoughtsAndCrosses.getWriter().getSettings().getMaxTime() + " seconds.");
         });
 
         VBox maxTimeVBox = new VBox(20);
@@ -151,22 +144,21 @@ public class OptionsScreen {
                 .setColor(Color.LIGHTGREY)
                 .build();
 
-        Label difficultyLabel = new Label(NoughtsAndCrosses.getWriter().getJsonKey("difficulty").toString());
+        Levels difficulty = NoughtsAndCrosses.getWriter().getDifficulty();
+        Label difficultyLabel = new Label(String.valueOf(difficulty));
         difficultyLabel.setFont(Font.font("Segoe UI", 24));
 
-        if (NoughtsAndCrosses.getWriter().getJsonKey("difficulty").equals(Levels.EASY.toString()))
-            difficultyLabel.setTextFill(Color.SPRINGGREEN);
-        else if (NoughtsAndCrosses.getWriter().getJsonKey("difficulty").equals(Levels.INTERMEDIATE.toString()))
-            difficultyLabel.setTextFill(Color.ORANGE);
-        else if (NoughtsAndCrosses.getWriter().getJsonKey("difficulty").equals(Levels.IMPOSSIBLE.toString()))
-            difficultyLabel.setTextFill(Color.RED);
+        if (difficulty == Levels.EASY) difficultyLabel.setTextFill(Color.SPRINGGREEN);
+        else if (difficulty == Levels.INTERMEDIATE) difficultyLabel.setTextFill(Color.ORANGE);
+        else if (difficulty == Levels.MONTE_CARLO) difficultyLabel.setTextFill(Color.ORANGERED);
+        else if (difficulty == Levels.IMPOSSIBLE) difficultyLabel.setTextFill(Color.RED);
         else difficultyLabel.setTextFill(Color.BLACK);
 
         HBox diffHBox = new HBox(5);
         diffHBox.getChildren().addAll(difficultyHeader, difficultyLabel);
         diffHBox.setAlignment(Pos.CENTER);
 
-        JFXSlider difficultySlider = new SliderBuilder(1, 3, getDifficultyLevel())
+        JFXSlider difficultySlider = new SliderBuilder(1, 4, getDifficultyLevel())
                 .setOrientation(Orientation.HORIZONTAL)
                 .setWidth(300)
                 .setCursor(Cursor.H_RESIZE)
@@ -180,8 +172,27 @@ public class OptionsScreen {
         difficultiesVBox.getChildren().addAll(difficultySlider, diffHBox);
         difficultiesVBox.setAlignment(Pos.CENTER);
 
+        Text playoutsHeader = new TextBuilder("Playouts per move in Monte Carlo difficulty")
+                .setFont(Font.font("Arial", FontWeight.SEMI_BOLD, 24))
+                .setColor(Color.SLATEGRAY)
+                .build();
+        JFXSlider playoutsSlider = new SliderBuilder(MonteCarlo.MIN_PLAYOUTS, MonteCarlo.MAX_PLAYOUTS, NoughtsAndCrosses.getWriter().getPlayouts())
+                .setOrientation(Orientation.HORIZONTAL)
+                .setWidth(400)
+                .setCursor(Cursor.H_RESIZE)
+                .setShowTickLabels(true)
+                .build();
+        playoutsSlider.setOnMouseReleased(event -> {
+            NoughtsAndCrosses.getWriter().setJsonKey("playouts", (int) Math.round(playoutsSlider.getValue() / 100) * 100);
+            Console.log("Set playouts JSON value to " + NoughtsAndCrosses.getWriter().getPlayouts() + " per move.");
+        });
+
+        VBox playoutsVBox = new VBox(20);
+        playoutsVBox.setAlignment(Pos.CENTER);
+        playoutsVBox.getChildren().addAll(playoutsSlider, playoutsHeader);
+
         VBox rootVBox = new VBox(15);
-        rootVBox.getChildren().addAll(themeHBox, sfxHBox, maxTimeVBox, difficultiesVBox);
+        rootVBox.getChildren().addAll(themeHBox, sfxHBox, maxTimeVBox, difficultiesVBox, playoutsVBox);
         rootVBox.setAlignment(Pos.CENTER);
         root.setCenter(rootVBox);
 
@@ -215,6 +226,9 @@ public class OptionsScreen {
             label.setText("Intermediate");
             label.setTextFill(Color.ORANGE);
         } else if (observableValue == 3) {
+            label.setText("Monte Carlo");
+            label.setTextFill(Color.ORANGERED);
+        } else if (observableValue == 4) {
             label.setText("Impossible");
             label.setTextFill(Color.RED);
         } else {
@@ -224,12 +238,12 @@ public class OptionsScreen {
     }
 
     private int getDifficultyLevel() {
-        if (!NoughtsAndCrosses.getWriter().containsKey("difficulty"))
-            Console.log("Could not find the 'difficulty' JSON key in the settings JSON");
-        else if (NoughtsAndCrosses.getWriter().getJsonKey("difficulty").equals(Levels.EASY.toString())) return 1;
-        else if (NoughtsAndCrosses.getWriter().getJsonKey("difficulty").equals(Levels.INTERMEDIATE.toString()))
-            return 2;
-        else if (NoughtsAndCrosses.getWriter().getJsonKey("difficulty").equals(Levels.IMPOSSIBLE.toString())) return 3;
+        Levels difficulty = NoughtsAndCrosses.getWriter().getDifficulty();
+        if (difficulty == null) Console.log("Could not find a known 'difficulty' JSON value in the settings JSON");
+        else if (difficulty == Levels.EASY) return 1;
+        else if (difficulty == Levels.INTERMEDIATE) return 2;
+        else if (difficulty == Levels.MONTE_CARLO) return 3;
+        else if (difficulty == Levels.IMPOSSIBLE) return 4;
 
         return 0;
     }
@@ -243,13 +257,16 @@ public class OptionsScreen {
                 NoughtsAndCrosses.getWriter().setJsonKey("difficulty", Levels.INTERMEDIATE.toString());
                 break;
             case 3:
+                NoughtsAndCrosses.getWriter().setJsonKey("difficulty", Levels.MONTE_CARLO.toString());
+                break;
+            case 4:
                 NoughtsAndCrosses.getWriter().setJsonKey("difficulty", Levels.IMPOSSIBLE.toString());
                 break;
             default:
                 throw new IllegalStateException("Unknown difficulty level");
         }
 
-        Console.log("Set 'difficulty' JSON value to " + NoughtsAndCrosses.getWriter().getJsonKey("difficulty"));
+        Console.log("Set 'difficulty' JSON value to " + NoughtsAndCrosses.getWriter().getDifficulty());
     }
 
     public Scene getScene() {
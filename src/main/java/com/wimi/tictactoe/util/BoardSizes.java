@@ -0,0 +1,50 @@
+/*
+ * Copyright 2019 Akshit Sinha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wimi.tictactoe.util;
+
+/**
+ * Board sizes a new game can be played on and the number of marks in a row needed to win on them.
+ */
+public enum BoardSizes {
+    CLASSIC(3, 3),
+    FOUR(4, 4),
+    FIVE(5, 4),
+    GOMOKU(15, 5);
+
+    private final int size;
+    private final int winLength;
+
+    BoardSizes(int size, int winLength) {
+        this.size = size;
+        this.winLength = winLength;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getWinLength() {
+        return winLength;
+    }
+
+    /**
+     * @return Name of the board shown to the user.
+     */
+    public String getLabel() {
+        return size + "x" + size;
+    }
+}
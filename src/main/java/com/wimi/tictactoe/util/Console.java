@@ -13,22 +13,206 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-
 package com.wimi.tictactoe.util;
 
+import java.io.*;
 import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
 
 /**
- * @Description Logs to console output.
+ * @Description Logs to console output and to a log file.
+ * <p>
+ * Messages are handed to a lock-free buffer and formatted and written by a background thread, so logging does not
+ * hold up the calling thread. A message which is below the level being logged costs a single check,
+ * and passing it as a supplier also skips building it. Code which logs fields on every move checks
+ * {@link #isEnabled(LogLevel)} first, so that the fields are not boxed when they are not logged.
+ * Fields are logged as {@code key=value} pairs after the message.
+ * </p>
  */
 public class Console {
 
+    private static final int CAPACITY = 8192; // Messages waiting to be written before new ones are dropped.
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(10); // Sleep of the writer when there is nothing to write.
+    private static final long FLUSH_TIMEOUT_MILLIS = 1000;
+
+    private static final LogBuffer buffer = new LogBuffer(CAPACITY);
+    private static final AtomicLong dropped = new AtomicLong();
+    private static volatile long written = 0; // Position up to which messages are written and flushed.
+
+    private static volatile boolean muted = false;
+    private static volatile LogLevel level = getDefaultLevel();
+
+    static {
+        Thread writer = new Thread(Console::write, "Console writer");
+        writer.setDaemon(true); // Must not keep the application alive.
+        writer.start();
+
+        Runtime.getRuntime().addShutdownHook(new Thread(Console::flush, "Console flush"));
+    }
+
     /**
      * Logs a message to the Console.
      *
      * @param log The log message.
      */
     public static void log(Object log) {
-        System.out.println("[" + Instant.now() + "] " + log);
+        if (isEnabled(LogLevel.INFO)) enqueue(LogLevel.INFO, String.valueOf(log), null);
+    }
+
+    /**
+     * Logs a message with fields.
+     *
+     * @param fields Keys followed by their values.
+     */
+    public static void log(LogLevel level, Object message, Object... fields) {
+        if (isEnabled(level)) enqueue(level, String.valueOf(message), fields);
+    }
+
+    /**
+     * Logs a message which is only built when the level is being logged.
+     *
+     * @param fields Keys followed by their values.
+     */
+    public static void log(LogLevel level, Supplier<?> message, Object... fields) {
+        if (isEnabled(level)) enqueue(level, String.valueOf(message.get()), fields);
+    }
+
+    public static void debug(Supplier<?> message) {
+        if (isEnabled(LogLevel.DEBUG)) enqueue(LogLevel.DEBUG, String.valueOf(message.get()), null);
+    }
+
+    public static void warn(Object message, Object... fields) {
+        if (isEnabled(LogLevel.WARN)) enqueue(LogLevel.WARN, String.valueOf(message), fields);
+    }
+
+    public static void error(Object message, Object... fields) {
+        if (isEnabled(LogLevel.ERROR)) enqueue(LogLevel.ERROR, String.valueOf(message), fields);
+    }
+
+    /**
+     * @return True if messages of the level are being logged. Used to skip work done only for logging.
+     */
+    public static boolean isEnabled(LogLevel level) {
+        return !muted && level.compareTo(Console.level) >= 0;
+    }
+
+    /**
+     * Logs only messages of the level and above.
+     */
+    public static void setLevel(LogLevel level) {
+        Console.level = level;
+    }
+
+    /**
+     * Stops or resumes logging. Used by batch runs which would otherwise log every move of every game.
+     */
+    public static void setMuted(boolean muted) {
+        Console.muted = muted;
+    }
+
+    /**
+     * Waits until the messages logged so far are written. Called before the application exits.
+     */
+    public static void flush() {
+        long target = buffer.getTail();
+        long deadline = System.currentTimeMillis() + FLUSH_TIMEOUT_MILLIS;
+        while (written < target && System.currentTimeMillis() < deadline) LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    private static void enqueue(LogLevel level, String message, Object[] fields) {
+        if (!buffer.offer(System.currentTimeMillis(), level, Thread.currentThread().getName(), message, fields))
+            dropped.incrementAndGet();
+    }
+
+    /**
+     * Runs on the writer thread. Writes messages as they come in and flushes the outputs whenever it catches up.
+     */
+    private static void write() {
+        PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16), false);
+        LogFile file = openFile();
+        LogBuffer.Slot slot = new LogBuffer.Slot();
+        StringBuilder line = new StringBuilder(256);
+        long position = 0;
+
+        while (true) {
+            long target = buffer.getTail();
+            while (buffer.poll(slot)) {
+                position++;
+                format(line, slot);
+                out.println(line);
+                file = writeToFile(file, line);
+            }
+
+            long lost = dropped.getAndSet(0);
+            if (lost > 0) {
+                line.setLength(0);
+                line.append('[').append(Instant.now()).append("] WARN [Console writer] Dropped ").append(lost)
+                        .append(" messages as they were logged faster than they could be written.");
+                out.println(line);
+                file = writeToFile(file, line);
+            }
+
+            if (position >= target) {
+                out.flush();
+                if (file != null) {
+                    try {
+                        file.flush();
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                        file = null;
+                    }
+                }
+
+                written = position;
+                LockSupport.parkNanos(IDLE_NANOS);
+            }
+        }
+    }
+
+    private static LogFile writeToFile(LogFile file, StringBuilder line) {
+        if (file == null) return null;
+
+        try {
+            file.write(line.toString());
+            return file;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null; // Keeps logging to the console only.
+        }
+    }
+
+    private static LogFile openFile() {
+        try {
+            return new LogFile(new File(System.getenv("TEMP") + "//.tictactoe//logs//"), "game", 1 << 20, 3);
+        } catch (IOException e) {
+            System.out.println("[" + Instant.now() + "] WARN [Console writer] Logging to the console only: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static void format(StringBuilder line, LogBuffer.Slot slot) {
+        line.setLength(0);
+        line.append('[').append(Instant.ofEpochMilli(slot.time)).append("] ");
+        if (slot.level != LogLevel.INFO) line.append(slot.level).append(' ');
+        line.append('[').append(slot.thread).append("] ").append(slot.message);
+
+        if (slot.fields != null) {
+            for (int i = 0; i + 1 < slot.fields.length; i += 2)
+                line.append(' ').append(slot.fields[i]).append('=').append(slot.fields[i + 1]);
+        }
+    }
+
+    /**
+     * The level can be chosen with {@code -Dtictactoe.log=DEBUG}.
+     */
+    private static LogLevel getDefaultLevel() {
+        try {
+            return LogLevel.valueOf(System.getProperty("tictactoe.log", "INFO").toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return LogLevel.INFO;
+        }
     }
 }
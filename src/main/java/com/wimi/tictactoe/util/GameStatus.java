@@ -0,0 +1,31 @@
+/*
+ * Copyright 2019 Akshit Sinha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wimi.tictactoe.util;
+
+/**
+ * States of a game. A game is played until it moves to one of the other states, after which it never changes.
+ */
+public enum GameStatus {
+    PLAYING,
+    TIMED_OUT, // The player to move ran out of time in Timed mode, the other player won.
+    WON,
+    DRAW;
+
+    public boolean isFinished() {
+        return this != PLAYING;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2019 Akshit Sinha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wimi.tictactoe.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Description Distribution of recorded values, such as the time taken by a move.
+ * <p>
+ * Values are counted in buckets whose width grows with the value, as in an HDR histogram. Values below 64 have a
+ * bucket of their own and every power of two above is split into 32 buckets, so a percentile is within about 3%
+ * of the recorded value whatever its size. Recording never allocates or takes a lock.
+ * </p>
+ */
+public final class Histogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = index(Long.MAX_VALUE) + 1;
+
+    private final boolean nanos;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @param nanos True if the values are durations in nanoseconds, which are reported in milliseconds.
+     */
+    Histogram(boolean nanos) {
+        this.nanos = nanos;
+    }
+
+    /**
+     * Records a value. Negative values are recorded as 0.
+     */
+    public void record(long value) {
+        value = Math.max(value, 0);
+        counts.incrementAndGet(index(value));
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Records the time passed since an earlier {@link System#nanoTime()}.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) count += counts.get(i);
+        return count;
+    }
+
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : scale(sum.sum()) / count;
+    }
+
+    public double getMax() {
+        return scale(max.get());
+    }
+
+    /**
+     * @param percentile From 0 to 100.
+     * @return The highest value of the bucket the percentile falls in, or 0 if nothing was recorded.
+     */
+    public double getPercentile(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) count += snapshot[i] = counts.get(i);
+        if (count == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        for (int i = 0; i < BUCKETS; i++) {
+            rank -= snapshot[i];
+            if (rank <= 0) return scale(Math.min(getHighest(i), max.get()));
+        }
+
+        return getMax();
+    }
+
+    /**
+     * @return True if the values are durations, reported in milliseconds.
+     */
+    public boolean isTime() {
+        return nanos;
+    }
+
+    private double scale(long value) {
+        return nanos ? value / 1e6 : value;
+    }
+
+    static int index(long value) {
+        if (value < 2 * SUB_BUCKETS) return (int) value;
+
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS; // Keeps the highest 6 bits of the value.
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    static long getLowest(int index) {
+        if (index < 2 * SUB_BUCKETS) return index;
+
+        int shift = index / SUB_BUCKETS - 1;
+        return (long) (index % SUB_BUCKETS + SUB_BUCKETS) << shift;
+    }
+
+    static long getHighest(int index) {
+        return index + 1 < BUCKETS ? getLowest(index + 1) - 1 : Long.MAX_VALUE;
+    }
+}
@@ -22,5 +22,6 @@ package com.wimi.tictactoe.util;
 public enum Levels {
     EASY,
     INTERMEDIATE,
+    MONTE_CARLO,
     IMPOSSIBLE
 }
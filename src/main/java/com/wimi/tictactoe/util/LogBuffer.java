@@ -0,0 +1,117 @@
+/*
+ * Copyright 2019 Akshit Sinha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wimi.tictactoe.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @Description Bounded queue of log messages which any thread can add to without taking a lock,
+ * and which one thread takes messages out of.
+ * <p>
+ * Every slot carries a sequence number. A slot can be written when its sequence equals the position being written
+ * and can be read when it is one more than the position being read. The slots are allocated once and reused.
+ * </p>
+ */
+final class LogBuffer {
+
+    private final Slot[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+
+    private final AtomicLong tail = new AtomicLong(); // Next position to be written.
+    private long head; // Next position to be read. Only used by the reading thread.
+
+    /**
+     * @param capacity Number of messages the buffer holds, a power of two.
+     */
+    LogBuffer(int capacity) {
+        if (Integer.bitCount(capacity) != 1) throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+
+        slots = new Slot[capacity];
+        sequences = new AtomicLongArray(capacity);
+        mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds a message. Never blocks, a message is dropped instead when the buffer is full.
+     *
+     * @return False if the buffer was full.
+     */
+    boolean offer(long time, LogLevel level, String thread, String message, Object[] fields) {
+        long position;
+        while (true) {
+            position = tail.get();
+            long sequence = sequences.get((int) position & mask);
+            if (sequence < position) return false; // The slot has not been read since the last time around.
+            if (sequence == position && tail.compareAndSet(position, position + 1)) break;
+        }
+
+        int index = (int) position & mask;
+        Slot slot = slots[index];
+        slot.time = time;
+        slot.level = level;
+        slot.thread = thread;
+        slot.message = message;
+        slot.fields = fields;
+        sequences.lazySet(index, position + 1); // Publishes the slot to the reading thread.
+
+        return true;
+    }
+
+    /**
+     * Takes the oldest message out. Must only be called by the reading thread.
+     *
+     * @param into Slot the message is copied to.
+     * @return False if there is no message to read.
+     */
+    boolean poll(Slot into) {
+        int index = (int) head & mask;
+        if (sequences.get(index) != head + 1) return false;
+
+        Slot slot = slots[index];
+        into.time = slot.time;
+        into.level = slot.level;
+        into.thread = slot.thread;
+        into.message = slot.message;
+        into.fields = slot.fields;
+        slot.message = null; // Lets the message be collected while the slot waits to be reused.
+        slot.fields = null;
+
+        sequences.lazySet(index, head + slots.length); // Hands the slot back to the writers.
+        head++;
+        return true;
+    }
+
+    /**
+     * @return Position after the last message which was added so far.
+     */
+    long getTail() {
+        return tail.get();
+    }
+
+    static final class Slot {
+        long time;
+        LogLevel level;
+        String thread;
+        String message;
+        Object[] fields;
+    }
+}
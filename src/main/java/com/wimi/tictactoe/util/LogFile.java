@@ -0,0 +1,91 @@
+/*
+ * Copyright 2019 Akshit Sinha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wimi.tictactoe.util;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @Description Log file which is rolled over when it grows too large.
+ * <p>
+ * The current file is {@code name.log}. When it reaches the maximum size it becomes {@code name.1.log},
+ * the older files move one number up and the oldest one is deleted.
+ * </p>
+ */
+final class LogFile implements Closeable {
+
+    private final File directory;
+    private final String name;
+    private final long maxBytes;
+    private final int backups;
+
+    private Writer writer;
+    private long bytes;
+
+    /**
+     * @param maxBytes Size at which the file is rolled over.
+     * @param backups  Number of older files kept.
+     */
+    LogFile(File directory, String name, long maxBytes, int backups) throws IOException {
+        this.directory = directory;
+        this.name = name;
+        this.maxBytes = maxBytes;
+        this.backups = backups;
+
+        if (!directory.isDirectory() && !directory.mkdirs()) throw new IOException("Cannot create " + directory);
+        open();
+    }
+
+    void write(String line) throws IOException {
+        if (bytes >= maxBytes) roll();
+
+        writer.write(line);
+        writer.write(System.lineSeparator());
+        bytes += line.length() + System.lineSeparator().length(); // Messages are mostly ASCII, close enough for rolling.
+    }
+
+    void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private void open() throws FileNotFoundException {
+        File file = getFile(0);
+        bytes = file.length();
+        writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8));
+    }
+
+    private void roll() throws IOException {
+        writer.close();
+
+        File oldest = getFile(backups);
+        if (oldest.exists() && !oldest.delete()) throw new IOException("Cannot delete " + oldest);
+        for (int i = backups - 1; i >= 0; i--) {
+            File file = getFile(i);
+            if (file.exists() && !file.renameTo(getFile(i + 1))) throw new IOException("Cannot rename " + file);
+        }
+
+        open();
+    }
+
+    private File getFile(int index) {
+        return new File(directory, index == 0 ? name + ".log" : name + "." + index + ".log");
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2019 Akshit Sinha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.wimi.tictactoe.util;
+
+import org.json.simple.JSONObject;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Description Counters and histograms of the game, by name.
+ * <p>
+ * Once started, a snapshot of every metric is written to a file every minute and the metrics can be read
+ * through JMX as attributes of {@code com.wimi.tictactoe:type=Metrics}.
+ * Durations are reported in milliseconds.
+ * </p>
+ */
+public final class Metrics {
+
+    private static final long SNAPSHOT_PERIOD_SECONDS = 60;
+    private static final double[] PERCENTILES = {50, 90, 99};
+
+    private static final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private static final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    private static final File snapshotFile = new File(System.getenv("TEMP") + "//.tictactoe//metrics.json");
+    private static ScheduledExecutorService executor;
+
+    private Metrics() {
+    }
+
+    /**
+     * @return The counter of the name, created the first time.
+     */
+    public static Counter counter(String name) {
+        return counters.computeIfAbsent(name, key -> new Counter());
+    }
+
+    /**
+     * @return The histogram of values of the name, created the first time.
+     */
+    public static Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, key -> new Histogram(false));
+    }
+
+    /**
+     * @return The histogram of durations in nanoseconds of the name, created the first time.
+     */
+    public static Histogram timer(String name) {
+        return histograms.computeIfAbsent(name, key -> new Histogram(true));
+    }
+
+    /**
+     * Registers the metrics with JMX and starts writing snapshots on a daemon thread.
+     */
+    public static synchronized void start() {
+        if (executor != null) return;
+
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsBean(), new ObjectName("com.wimi.tictactoe:type=Metrics"));
+        } catch (JMException e) {
+            Console.warn("Metrics cannot be read through JMX: " + e.getMessage());
+        }
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Metrics writer");
+            thread.setDaemon(true); // Must not keep the application alive.
+            return thread;
+        });
+        executor.scheduleAtFixedRate(Metrics::writeSnapshot, SNAPSHOT_PERIOD_SECONDS, SNAPSHOT_PERIOD_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Writes the current values to the snapshot file, replacing it in one step.
+     */
+    @SuppressWarnings("unchecked")
+    public static synchronized void writeSnapshot() {
+        JSONObject snapshot = new JSONObject();
+        snapshot.put("time", System.currentTimeMillis());
+        snapshot.putAll(getValues());
+
+        try {
+            Path target = snapshotFile.toPath();
+            Path temporary = target.resolveSibling(snapshotFile.getName() + ".tmp");
+            Files.write(temporary, snapshot.toJSONString().getBytes(StandardCharsets.UTF_8));
+            try {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @return Every metric as flat names, such as {@code ai.move.impossible.p99}, in order of their names.
+     */
+    static Map<String, Object> getValues() {
+        Map<String, Object> values = new TreeMap<>();
+        counters.forEach((name, counter) -> values.put(name, counter.get()));
+        histograms.forEach((name, histogram) -> {
+            values.put(name + ".count", histogram.getCount());
+            values.put(name + ".mean", histogram.getMean());
+            for (double percentile : PERCENTILES)
+                values.put(name + ".p" + (int) percentile, histogram.getPercentile(percentile));
+            values.put(name + ".max", histogram.getMax());
+        });
+
+        return values;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2019 Akshit Sinha
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wimi.tictactoe.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @Description Per thread random number generator which can be seeded to make games reproducible.
+ * <p>
+ * Every thread gets its own SplitMix64 generator, so nothing is shared or allocated when a number is drawn.
+ * The seeds of the threads are taken in turn from one master seed, set by the {@code tictactoe.seed}
+ * system property or the current time. A thread playing many games, such as a simulation, can reset its
+ * own generator with {@link #setSeed(long)}.
+ * </p>
+ */
+public final class RandomSource {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final AtomicLong seeder = new AtomicLong(Long.getLong("tictactoe.seed", System.nanoTime()));
+    private static final ThreadLocal<RandomSource> current = ThreadLocal.withInitial(() -> new RandomSource(mix(seeder.getAndAdd(GOLDEN_GAMMA))));
+
+    private long state;
+
+    private RandomSource(long seed) {
+        this.state = seed;
+    }
+
+    /**
+     * @return The generator of the calling thread.
+     */
+    public static RandomSource current() {
+        return current.get();
+    }
+
+    /**
+     * Resets the generator of the calling thread. The same seed gives the same numbers.
+     */
+    public static void setSeed(long seed) {
+        current.get().state = seed;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public long nextLong() {
+        return mix(state += GOLDEN_GAMMA);
+    }
+
+    /**
+     * @param bound Upper bound, exclusive. Must be positive.
+     * @return A number from 0 to bound - 1.
+     */
+    public int nextInt(int bound) {
+        return (int) (((nextLong() >>> 32) * bound) >>> 32); // Scales 32 random bits instead of dividing.
+    }
+
+    public boolean nextBoolean() {
+        return nextLong() < 0;
+    }
+
+    /**
+     * @return A number from 0 inclusive to 1 exclusive.
+     */
+    public float nextFloat() {
+        return (nextLong() >>> 40) * 0x1.0p-24f;
+    }
+
+    /**
+     * Picks one of the set bits of a mask, each with the same chance.
+     *
+     * @param mask Must not be 0.
+     * @return The index of the bit.
+     */
+    public int nextSetBit(int mask) {
+        return nthSetBit(mask & 0xFFFFFFFFL, nextInt(Integer.bitCount(mask)));
+    }
+
+    public int nextSetBit(long mask) {
+        return nthSetBit(mask, nextInt(Long.bitCount(mask)));
+    }
+
+    /**
+     * @param n Number of lower set bits to skip.
+     * @return The index of the set bit.
+     */
+    public static int nthSetBit(long mask, int n) {
+        for (; n > 0; n--) mask &= mask - 1; // Clears the lowest set bit.
+        return Long.numberOfTrailingZeros(mask);
+    }
+}